@@ -0,0 +1,50 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringtxApplication;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+벤치마크용 스프링 컨텍스트
+- 학습용 TRACE/DEBUG 로그와 show-sql 은 측정값을 왜곡하므로 끈다.
+- 트랜잭션 지표 수집도 기본으로 끈다. (측정 대상으로 켜고 싶으면 properties 로 다시 켠다)
+ */
+final class BenchmarkContext {
+
+    private static final String[] DEFAULTS = {
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN",
+            "--logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.org.hibernate.resource.transaction=WARN",
+            "--logging.level.hello.springtx=WARN",
+            "--spring.jpa.show-sql=false",
+            "--tx.metrics.enabled=false"
+    };
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return start(new Class<?>[0], properties);
+    }
+
+    // 벤치마크 전용 빈이 필요하면 설정 클래스를 같이 넘긴다.
+    static ConfigurableApplicationContext start(Class<?>[] sources, String... properties) {
+        List<String> args = new ArrayList<>(Arrays.asList(DEFAULTS));
+        for (String property : properties) {
+            // 같은 키를 두 번 넘기면 "false,true" 처럼 합쳐지므로 기본값을 지우고 넣는다
+            String key = "--" + property.substring(0, property.indexOf('=') + 1);
+            args.removeIf(arg -> arg.startsWith(key));
+            args.add("--" + property);
+        }
+        SpringApplication application = new SpringApplication(SpringtxApplication.class);
+        application.addPrimarySources(Arrays.asList(sources));
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(args.toArray(new String[0]));
+    }
+}
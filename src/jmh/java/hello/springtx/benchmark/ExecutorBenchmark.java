@@ -0,0 +1,82 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.concurrent.TransactionalExecutor;
+import hello.springtx.monitor.LatencyHistogram;
+import hello.springtx.propagation.MemberService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+플랫폼 스레드 풀 vs 가상 스레드로 joinV1 을 동시에 CONCURRENCY 건씩 실행한다. (Hikari 풀 크기는 같다)
+- 기본 joinV1 은 로그를 REQUIRES_NEW 로 저장해서 가입 한 건이 커넥션 두 개를 동시에 잡는다.
+  동시 호출 수가 풀보다 많으면 모두 첫 커넥션을 쥔 채 두 번째를 기다리는 교착이 생기므로(ConnectionStarvationTest),
+  member.join.coalesce-log=true 로 가입 한 건이 커넥션 하나만 쓰게 한다.
+- 처리량은 JMH 결과로, 호출 한 건의 p99 지연은 TearDown 에서 로그로 남긴다.
+- virtual 은 Java 21 에서만 실행된다: ./gradlew jmh -Pjava21 -PjmhIncludes=ExecutorBenchmark
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExecutorBenchmark {
+
+    static final int CONCURRENCY = 200;
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    final AtomicLong sequence = new AtomicLong();
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    ConfigurableApplicationContext context;
+    TransactionalExecutor executor;
+    MemberService memberService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "executor.virtual-threads=" + threads.equals("virtual"),
+                "executor.platform-threads=50",
+                "spring.datasource.hikari.maximum-pool-size=10",
+                "member.join.coalesce-log=true",
+                "logging.level.hello.springtx.benchmark=INFO");
+        executor = context.getBean(TransactionalExecutor.class);
+        memberService = context.getBean(MemberService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        log.info("[{}] joinV1 latency {}", threads, latency.snapshot());
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public void joinV1() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[CONCURRENCY];
+        for (int i = 0; i < CONCURRENCY; i++) {
+            String username = "executor_bench_" + sequence.incrementAndGet();
+            futures[i] = executor.submit(() -> {
+                long start = System.nanoTime();
+                memberService.joinV1(username);
+                latency.record(System.nanoTime() - start);
+                return null;
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
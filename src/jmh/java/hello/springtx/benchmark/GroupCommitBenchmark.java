@@ -0,0 +1,74 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.concurrent.GroupCommitCoordinator;
+import hello.springtx.propagation.MemberService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+그룹 커밋 처리량 vs 지연 시간 (16 스레드가 동시에 joinV1)
+- 커밋 비용(디스크 쓰기)이 보이도록 메모리 DB 대신 파일 H2 를 쓴다.
+- window=0 은 그룹 커밋을 끈 기존 방식(가입마다 커밋)이다.
+- coalesceLog=false 는 기본 joinV1(로그를 REQUIRES_NEW 로 저장)이다. 그룹 안에서는 새 트랜잭션을 열 수 없어서
+  그룹이 매번 실패하고 한 건씩 다시 실행된다. 그룹 커밋의 이득이 없다는 것(오히려 손해)을 같이 보여준다.
+- Throughput 으로 초당 가입 수를, SampleTime 으로 호출 한 건의 지연 분포(p50/p99)를 본다.
+  window 를 늘리면 한 번에 커밋하는 가입이 많아져 처리량은 늘지만, 호출 한 건은 최대 window 만큼 더 기다린다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+public class GroupCommitBenchmark {
+
+    @Param({"0", "1ms", "5ms"})
+    String window;
+
+    @Param({"true", "false"})
+    boolean coalesceLog;
+
+    ConfigurableApplicationContext context;
+    GroupCommitCoordinator coordinator;
+    MemberService memberService;
+    AtomicLong sequence = new AtomicLong();
+    String prefix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "spring.datasource.url=jdbc:h2:file:./build/benchmark/group-commit;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.datasource.hikari.maximum-pool-size=16",
+                "member.join.coalesce-log=" + coalesceLog,
+                "tx.group-commit.enabled=" + !window.equals("0"),
+                "tx.group-commit.window=" + (window.equals("0") ? "1ms" : window));
+        coordinator = context.getBean(GroupCommitCoordinator.class);
+        memberService = context.getBean(MemberService.class);
+        prefix = "bench_" + System.nanoTime() + "_";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object joinV1() {
+        String username = prefix + sequence.incrementAndGet();
+        return coordinator.execute(status -> {
+            memberService.joinV1(username);
+            return username;
+        });
+    }
+}
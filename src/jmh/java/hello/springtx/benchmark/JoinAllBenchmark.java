@@ -0,0 +1,61 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.MemberService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+대량 가입(joinAll) 처리량을 동시 파티션 수별로 잰다. (커넥션 풀 10개)
+- 1 -> 풀 크기까지 늘리면서 코어 수/커넥션 수에서 곡선이 꺾이는 지점을 본다.
+- 결과는 초당 가입 인원이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JoinAllBenchmark {
+
+    private static final int USERS = 2_000;
+
+    @Param({"1", "2", "4", "8", "10"})
+    int parallelism;
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.datasource.hikari.maximum-pool-size=10",
+                "member.join-all.parallelism=" + parallelism);
+        memberService = context.getBean(MemberService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public List<String> joinAll() {
+        List<String> usernames = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            usernames.add("bench_" + sequence.incrementAndGet());
+        }
+        return memberService.joinAll(usernames);
+    }
+}
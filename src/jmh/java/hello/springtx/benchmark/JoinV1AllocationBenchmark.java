@@ -0,0 +1,88 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.MemberService;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.jpa.spi.IdentifierGeneratorStrategyProvider;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+시퀀스 pooled 할당 전/후의 joinV1 처리량 (초당 가입 수, 가입 한 건 = member INSERT + log INSERT)
+- allocationSize=1: 할당 전. persist 마다 시퀀스 조회가 한 번씩 더 나간다.
+- allocationSize=50: 엔티티의 @SequenceGenerator 값. 시퀀스 한 번 조회로 50개의 id 를 메모리에서 나눠준다.
+- allocationSize 는 어노테이션 상수라서 바꿀 수 없으므로, 시퀀스 id 생성기를 increment_size 만 바꾼 생성기로 교체한다.
+  ddl-auto 로 만드는 시퀀스의 increment 도 같은 값이 된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JoinV1AllocationBenchmark {
+
+    static final String ALLOCATION_SIZE = "benchmark.id.allocation-size";
+
+    @Param({"1", "50"})
+    int allocationSize;
+
+    final AtomicLong sequence = new AtomicLong();
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "spring.jpa.properties." + AvailableSettings.IDENTIFIER_GENERATOR_STRATEGY_PROVIDER + "="
+                        + AllocationSizeStrategies.class.getName(),
+                "spring.jpa.properties." + ALLOCATION_SIZE + "=" + allocationSize);
+        memberService = context.getBean(MemberService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void joinV1() {
+        memberService.joinV1("bench_joinV1_" + sequence.incrementAndGet());
+    }
+
+    // @GeneratedValue(strategy = SEQUENCE) 가 쓰는 생성기를 바꾼다
+    public static class AllocationSizeStrategies implements IdentifierGeneratorStrategyProvider {
+
+        @Override
+        public Map<String, Class<?>> getStrategies() {
+            return Map.of(SequenceStyleGenerator.class.getName(), AllocationSizeSequenceGenerator.class,
+                    "enhanced-sequence", AllocationSizeSequenceGenerator.class);
+        }
+    }
+
+    public static class AllocationSizeSequenceGenerator extends SequenceStyleGenerator {
+
+        @Override
+        public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+            Object allocationSize = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATION_SIZE);
+            if (allocationSize != null) {
+                params.setProperty(INCREMENT_PARAM, allocationSize.toString());
+            }
+            super.configure(type, params, serviceRegistry);
+        }
+    }
+}
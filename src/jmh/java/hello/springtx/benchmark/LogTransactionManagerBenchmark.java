@@ -0,0 +1,51 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+로그 한 건 저장(REQUIRES_NEW 트랜잭션 하나)의 비용
+- jpa: LogRepository + JpaTransactionManager (EntityManager 생성, persist, flush)
+- jdbc: JdbcLogRepository + jdbcTransactionManager (커넥션 + INSERT 한 문장)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogTransactionManagerBenchmark {
+
+    @Param({"jpa", "jdbc"})
+    String manager;
+
+    ConfigurableApplicationContext context;
+    LogRepository logRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("log.jdbc.enabled=true");
+        logRepository = context.getBean(manager.equals("jdbc") ? "jdbcLogRepository" : "logRepository", LogRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Log save() {
+        Log logMessage = new Log("benchmark");
+        logRepository.save(logMessage);
+        return logMessage;
+    }
+}
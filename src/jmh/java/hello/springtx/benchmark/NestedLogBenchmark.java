@@ -0,0 +1,81 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.monitor.SessionWorkCounter;
+import hello.springtx.monitor.SessionWorkCounter.Work;
+import hello.springtx.propagation.MemberService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+MemberServiceTest 의 joinV2 시나리오를 로그 저장 방식별로 측정한다. (8 스레드, 커넥션 풀 4개)
+- requires_new: LogRepository.save. 가입 한 건이 커넥션 두 개를 동시에 잡으므로 풀이 작으면 커넥션을 기다린다.
+- nested: LogRepository.saveNested. 같은 커넥션에 세이브포인트를 만든다.
+- recoverException_success: 로그 저장이 실패해도 회원은 커밋되는 경우
+- transactions 보조 지표는 물리 트랜잭션 수(= 커넥션 획득 수)다. 가입 한 건당 requires_new 는 2, nested 는 1 이다.
+  SessionWorkCounter 는 tx.metrics.enabled=true 일 때만 세므로 이 벤치마크는 지표를 켠다. (두 모드 모두 같은 비용이 든다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class NestedLogBenchmark {
+
+    @Param({"requires_new", "nested"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    SessionWorkCounter workCounter;
+    AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.datasource.hikari.maximum-pool-size=4",
+                "tx.metrics.enabled=true",
+                "tx.jpa-savepoints.enabled=true",
+                "member.join.nested-log=" + mode.equals("nested"));
+        memberService = context.getBean(MemberService.class);
+        workCounter = context.getBean(SessionWorkCounter.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Connections {
+
+        public long transactions;
+    }
+
+    @Benchmark
+    public void joinV2(Connections connections) {
+        join("bench_" + sequence.incrementAndGet(), connections);
+    }
+
+    @Benchmark
+    public void recoverException_success(Connections connections) {
+        join("bench_로그예외_" + sequence.incrementAndGet(), connections);
+    }
+
+    private void join(String username, Connections connections) {
+        Work before = workCounter.current();
+        memberService.joinV2(username);
+        connections.transactions += workCounter.current().minus(before).getTransactions();
+    }
+}
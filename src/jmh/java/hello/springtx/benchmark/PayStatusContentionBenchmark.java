@@ -0,0 +1,81 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderService;
+import hello.springtx.order.PayStatus;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+주문 하나(hot row)의 결제 상태를 8개 스레드가 동시에 바꾼다.
+- optimistic: @Version + 충돌 시 재시도 (OrderService.updatePayStatus)
+- pessimistic: SELECT ... FOR UPDATE 로 읽고 변경 (OrderRepository.findForUpdate)
+- conditional: UPDATE ... WHERE payStatus = ? 한 문장 (OrderService.updatePayStatusIf)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class PayStatusContentionBenchmark {
+
+    @Param({"optimistic", "pessimistic", "conditional"})
+    String strategy;
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+    OrderRepository orderRepository;
+    TransactionTemplate txTemplate;
+    Long orderId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NotEnoughMoneyException {
+        context = BenchmarkContext.start("logging.level.hello.springtx.concurrent=WARN");
+        orderService = context.getBean(OrderService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        txTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+        orderId = order.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object update() {
+        boolean pending = ThreadLocalRandom.current().nextBoolean();
+        PayStatus payStatus = pending ? PayStatus.PENDING : PayStatus.COMPLETED;
+        switch (strategy) {
+            case "optimistic":
+                return orderService.updatePayStatus(orderId, payStatus);
+            case "pessimistic":
+                return txTemplate.execute(status -> {
+                    Order order = orderRepository.findForUpdate(orderId).orElseThrow();
+                    order.setPayStatus(payStatus);
+                    return order;
+                });
+            default:
+                return orderService.updatePayStatusIf(orderId, pending ? PayStatus.COMPLETED : PayStatus.PENDING, payStatus);
+        }
+    }
+}
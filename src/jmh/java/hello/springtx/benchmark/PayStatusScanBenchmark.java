@@ -0,0 +1,86 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.order.PayStatus;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/*
+결제 상태 컬럼 저장 방식 비교 (변경 전 VARCHAR vs 변경 후 TINYINT)
+- 같은 분포(대기 10%, 완료 90%)의 행을 두 방식으로 만들고, (pay_status, next_pay_attempt_at) 인덱스로 대기 주문을 센다.
+- 행 크기는 셋업 때 H2 의 DISK_SPACE_USED 로 테이블 크기를 출력해서 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayStatusScanBenchmark {
+
+    private static final String[] LABELS = {"대기", "완료", "실패"};
+
+    @Param({"varchar", "tinyint"})
+    String column;
+
+    @Param("100000")
+    int rows;
+
+    ConfigurableApplicationContext context;
+    JdbcTemplate jdbcTemplate;
+    Object pending;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        boolean varchar = column.equals("varchar");
+        pending = varchar ? PayStatus.PENDING.getLabel() : PayStatus.PENDING.getCode();
+        jdbcTemplate.execute("create table scan_orders (id bigint primary key, username varchar(255), pay_status "
+                + (varchar ? "varchar(255)" : "tinyint") + ", next_pay_attempt_at timestamp)");
+        jdbcTemplate.execute("create index ix_scan_orders_pay_retry on scan_orders (pay_status, next_pay_attempt_at)");
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>();
+        for (int id = 0; id < rows; id++) {
+            PayStatus status = id % 10 == 0 ? PayStatus.PENDING : PayStatus.COMPLETED;
+            batch.add(new Object[]{id, "정상", varchar ? LABELS[status.getCode()] : status.getCode(),
+                    status == PayStatus.PENDING ? now : null});
+            if (batch.size() == 1000) {
+                jdbcTemplate.batchUpdate("insert into scan_orders values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into scan_orders values (?, ?, ?, ?)", batch);
+        }
+
+        Long bytes = jdbcTemplate.queryForObject("select disk_space_used('SCAN_ORDERS')", Long.class);
+        System.out.printf("%n[%s] scan_orders %d rows, disk space used = %d bytes (%.1f bytes/row)%n",
+                column, rows, bytes, (double) bytes / rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long countPending() {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from scan_orders where pay_status = ? and next_pay_attempt_at <= current_timestamp",
+                Long.class, pending);
+    }
+}
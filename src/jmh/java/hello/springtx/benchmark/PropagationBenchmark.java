@@ -0,0 +1,89 @@
+package hello.springtx.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+
+/*
+BasicTxTest 의 시나리오를 트랜잭션 매니저별로 측정한다.
+- jdbc: DataSourceTransactionManager
+- jpa: 애플리케이션 기본 JpaTransactionManager
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropagationBenchmark {
+
+    @Param({"jdbc", "jpa"})
+    String manager;
+
+    ConfigurableApplicationContext context;
+    PlatformTransactionManager txManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        txManager = manager.equals("jdbc")
+                ? new DataSourceTransactionManager(context.getBean(DataSource.class))
+                : context.getBean(PlatformTransactionManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void commit() {
+        TransactionStatus status = txManager.getTransaction(new DefaultTransactionAttribute());
+        txManager.commit(status);
+    }
+
+    @Benchmark
+    public void double_commit() {
+        TransactionStatus s1 = txManager.getTransaction(new DefaultTransactionAttribute());
+        txManager.commit(s1);
+        TransactionStatus s2 = txManager.getTransaction(new DefaultTransactionAttribute());
+        txManager.commit(s2);
+    }
+
+    @Benchmark
+    public void inner_commit() {
+        TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
+        TransactionStatus inner = txManager.getTransaction(new DefaultTransactionAttribute());
+        txManager.commit(inner);
+        txManager.commit(outer);
+    }
+
+    @Benchmark
+    public void outer_rollback() {
+        TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
+        TransactionStatus inner = txManager.getTransaction(new DefaultTransactionAttribute());
+        txManager.commit(inner);
+        txManager.rollback(outer);
+    }
+
+    @Benchmark
+    public void inner_rollback_requires_new() {
+        TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
+        TransactionStatus inner = txManager.getTransaction(
+                new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        txManager.rollback(inner);
+        txManager.commit(outer);
+    }
+}
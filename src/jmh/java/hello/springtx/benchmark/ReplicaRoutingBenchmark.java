@@ -0,0 +1,65 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+읽기 위주의 MemberRepository.find 처리량 (replica 라우팅 OFF/ON)
+- 두 풀이 같은 H2 메모리 DB 를 바라보게 해서, 복제 지연이 없는 replica 를 흉내낸다.
+- ON 이면 읽기는 replica 풀, 쓰기는 primary 풀을 쓰므로 풀 하나를 나눠 쓰지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ReplicaRoutingBenchmark {
+
+    static final int MEMBERS = 1000;
+
+    @Param({"false", "true"})
+    boolean replica;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "datasource.replica.enabled=" + replica,
+                "spring.datasource.url=jdbc:h2:mem:replica_bench;DB_CLOSE_DELAY=-1",
+                "spring.datasource.hikari.maximum-pool-size=4",
+                "datasource.replica.jdbc-url=jdbc:h2:mem:replica_bench;DB_CLOSE_DELAY=-1",
+                "datasource.replica.username=sa",
+                "datasource.replica.maximum-pool-size=4");
+        memberRepository = context.getBean(MemberRepository.class);
+
+        MemberService memberService = context.getBean(MemberService.class);
+        for (int i = 0; i < MEMBERS; i++) {
+            memberService.joinV1("replica_bench_" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object find() {
+        return memberRepository.find("replica_bench_" + ThreadLocalRandom.current().nextInt(MEMBERS));
+    }
+}
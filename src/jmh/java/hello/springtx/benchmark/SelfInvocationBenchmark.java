@@ -0,0 +1,125 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.apply.SelfInvocationTransactional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/*
+트랜잭션 적용 방식별 호출 비용
+- external() 이 내부의 @Transactional(SUPPORTS) 메서드를 부르는 같은 시나리오를 세 방식으로 실행한다.
+  SUPPORTS 라서 물리 트랜잭션(커넥션)은 없고, 인터셉터와 트랜잭션 동기화 비용만 남는다.
+- jdk: 인터페이스 기반 JDK 동적 프록시 + 트랜잭션 메서드를 별도 빈으로 분리
+- cglib: 스프링 기본(CGLIB 프록시) + 트랜잭션 메서드를 별도 빈으로 분리 (IntenalCallV2Test 방식)
+- subclass: @SelfInvocationTransactional, 같은 빈의 this.internal() 호출 (IntenalCallV3Test 방식)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SelfInvocationBenchmark {
+
+    ConfigurableApplicationContext context;
+    External jdk;
+    External cglib;
+    SelfCallService subclass;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(new Class<?>[]{Config.class});
+        cglib = context.getBean("cglibExternal", External.class);
+        subclass = context.getBean(SelfCallService.class);
+
+        ProxyFactory proxyFactory = new ProxyFactory(new InternalService());
+        proxyFactory.setInterfaces(Internal.class);
+        proxyFactory.addAdvice(context.getBean(TransactionInterceptor.class));
+        jdk = new External((Internal) proxyFactory.getProxy());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int jdk() {
+        return jdk.external();
+    }
+
+    @Benchmark
+    public int cglib() {
+        return cglib.external();
+    }
+
+    @Benchmark
+    public int subclass() {
+        return subclass.external();
+    }
+
+    @Configuration
+    @Import(SelfCallService.class)
+    static class Config {
+
+        @Bean
+        InternalService internalService() {
+            return new InternalService();
+        }
+
+        @Bean
+        External cglibExternal(InternalService internalService) {
+            return new External(internalService);
+        }
+    }
+
+    public interface Internal {
+        int internal();
+    }
+
+    public static class InternalService implements Internal {
+        @Override
+        @Transactional(propagation = Propagation.SUPPORTS)
+        public int internal() {
+            return 1;
+        }
+    }
+
+    public static class External {
+
+        private final Internal internal;
+
+        public External(Internal internal) {
+            this.internal = internal;
+        }
+
+        public int external() {
+            return internal.internal();
+        }
+    }
+
+    @SelfInvocationTransactional
+    public static class SelfCallService {
+
+        public int external() {
+            return internal();
+        }
+
+        @Transactional(propagation = Propagation.SUPPORTS)
+        public int internal() {
+            return 1;
+        }
+    }
+}
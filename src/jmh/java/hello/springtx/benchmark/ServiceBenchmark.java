@@ -0,0 +1,61 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// MemberService.joinV1/V2, OrderService.order 한 번의 비용 (JpaTransactionManager)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceBenchmark {
+
+    final AtomicLong sequence = new AtomicLong();
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        memberService = context.getBean(MemberService.class);
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void joinV1() {
+        memberService.joinV1("bench_joinV1_" + sequence.incrementAndGet());
+    }
+
+    @Benchmark
+    public void joinV2() {
+        memberService.joinV2("bench_joinV2_" + sequence.incrementAndGet());
+    }
+
+    @Benchmark
+    public Order order() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+        return order;
+    }
+}
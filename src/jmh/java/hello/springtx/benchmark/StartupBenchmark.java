@@ -0,0 +1,57 @@
+package hello.springtx.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+컨텍스트 시작부터 첫 트랜잭션 커밋까지 걸린 시간
+- tuned: application.properties 그대로 (deferred 리포지토리 + 백그라운드 EntityManagerFactory, 컨텍스트 인덱스)
+- baseline: 위 설정을 되돌린 상태
+  컨텍스트 인덱스(spring.components)는 클래스패스에 같이 들어가므로 spring.index.ignore=true 로 무시하게 한다.
+  이 값은 CandidateComponentsIndexLoader 가 처음 로딩될 때 한 번만 읽으므로, 파라미터마다 JVM 을 따로 띄우고(fork)
+  스프링 클래스를 쓰기 전에 시스템 프로퍼티로 넣는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"baseline", "tuned"})
+    String mode;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (mode.equals("baseline")) {
+            System.setProperty("spring.index.ignore", "true");
+        }
+    }
+
+    @Benchmark
+    public void timeToFirstTransaction() {
+        ConfigurableApplicationContext context = mode.equals("baseline")
+                ? BenchmarkContext.start("spring.data.jpa.repositories.bootstrap-mode=default")
+                : BenchmarkContext.start();
+        try {
+            new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> { });
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -2,12 +2,16 @@ package hello.springtx;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class SpringtxApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(SpringtxApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringtxApplication.class);
+		// 시작 단계별 시간을 모아두었다가 StartupReport 가 오래 걸린 단계를 남긴다
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 }
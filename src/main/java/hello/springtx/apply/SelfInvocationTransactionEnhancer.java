@@ -0,0 +1,84 @@
+package hello.springtx.apply;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.AopInfrastructureBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.cglib.core.SpringNamingPolicy;
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.NoOp;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/*
+@SelfInvocationTransactional 빈의 클래스를, @Transactional 메서드를 재정의한 CGLIB 하위 클래스로 바꿔치기한다.
+- 빈 정의 단계에서 클래스만 바꾸므로, 생성자 주입 등은 원래 클래스와 똑같이 동작한다. (@Configuration 클래스 강화와 같은 방식)
+- @Transactional 이 없는 메서드는 NoOp 콜백이라 원래 메서드가 그대로 호출된다.
+- 하위 클래스는 AopInfrastructureBean 을 구현해서 자동 프록시 대상에서 빠진다. (트랜잭션이 두 번 적용되지 않게)
+ */
+@Slf4j
+@Component
+public class SelfInvocationTransactionEnhancer implements BeanFactoryPostProcessor {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            if (!(definition instanceof AbstractBeanDefinition) || definition.getBeanClassName() == null
+                    || definition.getFactoryMethodName() != null) {
+                continue;
+            }
+            Class<?> beanClass = ClassUtils.resolveClassName(definition.getBeanClassName(), beanFactory.getBeanClassLoader());
+            if (AnnotatedElementUtils.hasAnnotation(beanClass, SelfInvocationTransactional.class)) {
+                ((AbstractBeanDefinition) definition).setBeanClass(enhance(beanClass, beanFactory));
+                log.info("내부 호출 트랜잭션 적용 bean = {}", beanName);
+            }
+        }
+    }
+
+    private static Class<?> enhance(Class<?> beanClass, ConfigurableListableBeanFactory beanFactory) {
+        AnnotationTransactionAttributeSource annotations = new AnnotationTransactionAttributeSource(false);
+        List<Callback> callbacks = new ArrayList<>();
+        callbacks.add(NoOp.INSTANCE);
+        Map<Method, Integer> callbackIndex = new HashMap<>();
+
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanClass, ReflectionUtils.USER_DECLARED_METHODS)) {
+            int modifiers = method.getModifiers();
+            if (Modifier.isPrivate(modifiers) || Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+                continue;
+            }
+            TransactionAttribute attribute = annotations.getTransactionAttribute(method, beanClass);
+            if (attribute != null) {
+                callbackIndex.put(method, callbacks.size());
+                callbacks.add(new TransactionalMethodInterceptor(method, beanClass, attribute, beanFactory));
+            }
+        }
+
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(beanClass);
+        enhancer.setInterfaces(new Class<?>[]{AopInfrastructureBean.class});
+        enhancer.setUseFactory(false);
+        enhancer.setUseCache(false);
+        enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+        enhancer.setClassLoader(beanFactory.getBeanClassLoader());
+        enhancer.setCallbackTypes(callbacks.stream().map(Callback::getClass).toArray(Class<?>[]::new));
+        enhancer.setCallbackFilter(method -> callbackIndex.getOrDefault(method, 0));
+
+        Class<?> enhanced = enhancer.createClass();
+        Enhancer.registerStaticCallbacks(enhanced, callbacks.toArray(new Callback[0]));
+        return enhanced;
+    }
+}
@@ -0,0 +1,20 @@
+package hello.springtx.apply;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+이 클래스의 @Transactional 은 프록시 대신, 빈 클래스를 상속해서 만든 하위 클래스가 적용한다. (SelfInvocationTransactionEnhancer)
+- 빈 자체가 하위 클래스의 인스턴스라서 this.internal() 같은 내부 호출에도 트랜잭션이 적용된다.
+- 빈은 자동 프록시 대상에서 빠진다. (다른 AOP 어드바이스도 적용되지 않는다)
+- private, final 메서드는 재정의할 수 없으므로 적용되지 않는다.
+- 클래스로 등록되는 빈(컴포넌트 스캔, @Import)에만 적용된다. @Bean 메서드가 직접 new 하는 빈은 바꿀 수 없다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SelfInvocationTransactional {
+}
@@ -0,0 +1,150 @@
+package hello.springtx.apply;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/*
+시작할 때 모든 @Transactional 메서드의 TransactionAttribute 를 미리 계산해서 고정해두는 레지스트리
+- 스프링은 메서드가 처음 호출될 때 어노테이션을 찾고(메서드 > 클래스 순서의 우선순위 적용) 결과를 캐시한다.
+  그래서 배포 직후 첫 요청들이 어노테이션 탐색 비용을 낸다.
+- 싱글톤 빈이 모두 만들어진 뒤 빈 클래스의 public 메서드를 훑어서 속성을 계산하고, 이름순 배열 + 불변 인덱스로 고정한다.
+- 컨텍스트의 TransactionAttributeSource 를 감싸서, 고정된 뒤에는 배열에서 바로 돌려준다.
+  레지스트리에 없는 메서드(나중에 만들어진 빈, 인터페이스 메서드 등)는 원래 소스로 넘긴다.
+- 고정된 표는 시작 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class TransactionAttributeRegistry implements BeanPostProcessor, PriorityOrdered, BeanFactoryAware,
+        SmartInitializingSingleton {
+
+    private ConfigurableListableBeanFactory beanFactory;
+    private FrozenAttributeSource source;
+
+    private volatile Entry[] entries = new Entry[0];
+    private volatile Map<MethodClassKey, Integer> index = Map.of();
+
+    public List<Entry> getEntries() {
+        return List.of(entries);
+    }
+
+    // 이름은 "클래스명.메서드명" 이다. 예) hello.springtx.order.OrderService.order
+    public Optional<TransactionAttribute> find(String name) {
+        return Arrays.stream(entries).filter(entry -> entry.name.equals(name)).map(Entry::getAttribute).findFirst();
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (source == null && bean instanceof TransactionAttributeSource) {
+            source = new FrozenAttributeSource((TransactionAttributeSource) bean);
+            return source;
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (source == null) {
+            return;
+        }
+        List<Entry> resolved = new ArrayList<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (definition.getRole() != BeanDefinition.ROLE_APPLICATION || beanType == null || Proxy.isProxyClass(beanType)) {
+                continue;
+            }
+            Class<?> userClass = ClassUtils.getUserClass(beanType);
+            if (source.delegate.isCandidateClass(userClass)) {
+                resolve(userClass, resolved);
+            }
+        }
+        resolved.sort(Comparator.comparing(Entry::getName));
+
+        Map<MethodClassKey, Integer> keys = new HashMap<>();
+        for (int i = 0; i < resolved.size(); i++) {
+            keys.putIfAbsent(resolved.get(i).key, i);
+        }
+        entries = resolved.toArray(new Entry[0]);
+        index = Map.copyOf(keys);
+        log.info("트랜잭션 속성 {}개를 고정했습니다.\n{}", entries.length, report());
+    }
+
+    private void resolve(Class<?> userClass, List<Entry> resolved) {
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(userClass, ReflectionUtils.USER_DECLARED_METHODS)) {
+            TransactionAttribute attribute = source.delegate.getTransactionAttribute(method, userClass);
+            if (attribute != null) {
+                resolved.add(new Entry(ClassUtils.getQualifiedMethodName(method, userClass), attribute,
+                        new MethodClassKey(method, userClass)));
+            }
+        }
+    }
+
+    private String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : entries) {
+            sb.append(entry.name).append(" -> ").append(entry.attribute).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+
+        private final String name;
+        private final TransactionAttribute attribute;
+        private final MethodClassKey key;
+    }
+
+    @RequiredArgsConstructor
+    private class FrozenAttributeSource implements TransactionAttributeSource {
+
+        private final TransactionAttributeSource delegate;
+
+        @Override
+        public boolean isCandidateClass(Class<?> targetClass) {
+            return delegate.isCandidateClass(targetClass);
+        }
+
+        @Override
+        public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+            Integer i = index.get(new MethodClassKey(method, targetClass));
+            return i != null ? entries[i].attribute : delegate.getTransactionAttribute(method, targetClass);
+        }
+    }
+}
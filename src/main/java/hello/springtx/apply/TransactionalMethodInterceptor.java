@@ -0,0 +1,52 @@
+package hello.springtx.apply;
+
+import java.lang.reflect.Method;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/*
+@Transactional 메서드 하나에 붙는 CGLIB 콜백
+- 트랜잭션 시작/커밋/롤백 규칙은 스프링의 TransactionAspectSupport 를 그대로 쓴다.
+- TransactionAttribute 는 처음 호출될 때 한 번만 찾아서 필드에 둔다. 이후 호출은 맵 조회도 없다.
+  컨텍스트의 TransactionAttributeSource 를 먼저 쓰고(트랜잭션 이름, 롤백 원인 기록이 프록시 방식과 같아진다),
+  거기서 못 찾는 public 이 아닌 메서드는 클래스를 만들 때 찾아둔 속성을 쓴다.
+ */
+class TransactionalMethodInterceptor extends TransactionAspectSupport implements MethodInterceptor, TransactionAttributeSource {
+
+    private final Method method;
+    private final Class<?> userClass;
+    private final TransactionAttribute fallback;
+    private volatile TransactionAttribute attribute;
+
+    TransactionalMethodInterceptor(Method method, Class<?> userClass, TransactionAttribute fallback, BeanFactory beanFactory) {
+        this.method = method;
+        this.userClass = userClass;
+        this.fallback = fallback;
+        setBeanFactory(beanFactory);
+    }
+
+    @Override
+    public Object intercept(Object obj, Method method, Object[] args, MethodProxy proxy) throws Throwable {
+        return invokeWithinTransaction(this.method, userClass, () -> proxy.invokeSuper(obj, args));
+    }
+
+    @Override
+    public TransactionAttributeSource getTransactionAttributeSource() {
+        return this;
+    }
+
+    @Override
+    public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+        TransactionAttribute resolved = attribute;
+        if (resolved == null) {
+            TransactionAttributeSource source = getBeanFactory().getBeanProvider(TransactionAttributeSource.class).getIfUnique();
+            resolved = source == null ? null : source.getTransactionAttribute(this.method, userClass);
+            attribute = resolved = resolved == null ? fallback : resolved;
+        }
+        return resolved;
+    }
+}
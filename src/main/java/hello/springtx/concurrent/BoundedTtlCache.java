@@ -0,0 +1,55 @@
+package hello.springtx.concurrent;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+
+/*
+크기와 TTL 로 제한되는 작은 인메모리 캐시
+- 최대 maxSize 개까지 보관하고, 넘치면 가장 오래 사용하지 않은 항목부터 버린다. (LinkedHashMap access-order)
+- 저장한 뒤 ttl 이 지난 항목은 조회할 때 버린다.
+- 조회/저장 모두 짧은 synchronized 구간이라, DB 왕복 대신 쓰는 용도로는 충분하다.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+
+    public BoundedTtlCache(int maxSize, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAt > ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry<V> {
+
+        private final V value;
+        private final long createdAt;
+    }
+}
@@ -0,0 +1,218 @@
+package hello.springtx.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+그룹 커밋 (tx.group-commit.enabled=true 일 때만 동작)
+작은 트랜잭션(MemberService.joinV1 등)을 초당 수천 번 커밋하면 커밋마다 하는 디스크 fsync 가 지연 시간을 차지한다.
+- 동시에 들어온 작업을 window 동안(또는 maxSize 개가 찰 때까지) 모아서 한 트랜잭션, 한 번의 커밋으로 실행한다.
+- 먼저 들어온 호출 스레드가 리더가 되어 모인 작업을 실행하고, 나머지 호출 스레드는 자기 결과를 기다린다.
+  리더가 커밋하는 동안 들어온 작업은 다음 리더가 모은다.
+- 호출한 쪽은 각자 자기 결과(반환값 또는 예외)를 받는다.
+  그룹이 실패하면(작업 하나의 예외, 롤백 표시, 커밋 실패) 그룹 전체가 롤백되므로, 작업을 한 건씩 자기 트랜잭션으로 다시 실행한다.
+  그래서 작업은 다시 실행해도 되도록 엔티티를 콜백 안에서 새로 만들어야 한다.
+- 작업은 그룹 트랜잭션에 참여만 해야 한다. (REQUIRED, MANDATORY. 예: member.join.coalesce-log=true 인 joinV1)
+  REQUIRES_NEW 같은 새 트랜잭션은 그룹과 따로 커밋되어서, 그룹이 실패해 다시 실행하면 두 번 저장된다.
+  그래서 그룹 안에서 트랜잭션을 보류하려고 하면 새 트랜잭션이 시작되기 전에 예외로 막는다.
+  작업이 그 예외를 잡고 계속 진행해도(예: joinV2) 그 그룹은 실패로 처리되어 작업이 한 건씩 자기 트랜잭션으로 실행되므로 결과는 맞지만, 그룹 커밋의 이득은 없다.
+- 이미 트랜잭션 안에서 호출하면 모으지 않고 그 트랜잭션에 참여한다.
+ */
+@Slf4j
+@Lazy
+@Component
+public class GroupCommitCoordinator {
+
+    private final TransactionTemplate txTemplate;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxSize;
+
+    private final Object lock = new Object();
+    private List<Unit<?>> pending = new ArrayList<>();
+    private boolean leading;
+
+    private final AtomicLong groups = new AtomicLong();
+    private final AtomicLong groupedUnits = new AtomicLong();
+    private final AtomicLong retriedUnits = new AtomicLong();
+
+    public GroupCommitCoordinator(PlatformTransactionManager txManager,
+                                  @Value("${tx.group-commit.enabled:false}") boolean enabled,
+                                  @Value("${tx.group-commit.window:2ms}") Duration window,
+                                  @Value("${tx.group-commit.max-size:64}") int maxSize) {
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public <T> T execute(TransactionCallback<T> action) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return txTemplate.execute(action);
+        }
+
+        Unit<T> unit = new Unit<>(action);
+        boolean leader;
+        synchronized (lock) {
+            pending.add(unit);
+            leader = !leading;
+            if (leader) {
+                leading = true;
+            } else if (pending.size() >= maxSize) {
+                lock.notifyAll();
+            }
+        }
+        if (leader) {
+            commit(collect());
+        }
+        return unit.await();
+    }
+
+    // 한 트랜잭션으로 커밋한 그룹 수
+    public long getGroups() {
+        return groups.get();
+    }
+
+    // 그룹 커밋으로 끝난 작업 수
+    public long getGroupedUnits() {
+        return groupedUnits.get();
+    }
+
+    // 그룹이 실패해서 한 건씩 다시 실행한 작업 수
+    public long getRetriedUnits() {
+        return retriedUnits.get();
+    }
+
+    private List<Unit<?>> collect() {
+        synchronized (lock) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while (pending.size() < maxSize && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // 기다리기를 그만두고 지금까지 모인 작업을 커밋한다
+                    break;
+                }
+            }
+            List<Unit<?>> group = pending;
+            pending = new ArrayList<>();
+            leading = false;
+            return group;
+        }
+    }
+
+    private void commit(List<Unit<?>> group) {
+        if (group.size() > 1 && commitGroup(group)) {
+            return;
+        }
+        if (group.size() > 1) {
+            log.info("그룹 커밋 실패, 한 건씩 다시 실행합니다. size = {}", group.size());
+            retriedUnits.addAndGet(group.size());
+        }
+        for (Unit<?> unit : group) {
+            unit.runAlone();
+        }
+    }
+
+    private boolean commitGroup(List<Unit<?>> group) {
+        List<Object> results;
+        try {
+            results = txTemplate.execute(status -> {
+                NoNewTransaction guard = new NoNewTransaction();
+                TransactionSynchronizationManager.registerSynchronization(guard);
+                List<Object> values = new ArrayList<>(group.size());
+                for (Unit<?> unit : group) {
+                    values.add(unit.action.doInTransaction(status));
+                    // 작업 하나가 롤백을 표시하면 그룹 전체가 조용히 롤백되므로 실패로 본다. 새 트랜잭션을 막았을 때도 실패다.
+                    if (status.isRollbackOnly() || guard.rejected) {
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                }
+                return values;
+            });
+        } catch (RuntimeException | Error e) {
+            log.debug("그룹 트랜잭션 실패", e);
+            return false;
+        }
+        if (results == null) {
+            return false;
+        }
+
+        groups.incrementAndGet();
+        groupedUnits.addAndGet(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).completeWith(results.get(i));
+        }
+        return true;
+    }
+
+    // 보류(suspend)는 새 트랜잭션을 시작하기 전에 일어나므로, 여기서 예외를 던지면 그 트랜잭션은 커밋되지 않는다.
+    // 다른 동기화가 리소스를 먼저 보류하지 않도록 가장 먼저 호출되게 한다.
+    private static class NoNewTransaction implements TransactionSynchronization {
+
+        private boolean rejected;
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void suspend() {
+            rejected = true;
+            throw new IllegalStateException("그룹 커밋 안에서는 새 트랜잭션(REQUIRES_NEW, NOT_SUPPORTED)을 시작할 수 없습니다.");
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class Unit<T> {
+
+        private final TransactionCallback<T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        @SuppressWarnings("unchecked")
+        void completeWith(Object value) {
+            result.complete((T) value);
+        }
+
+        void runAlone() {
+            try {
+                result.complete(txTemplate.execute(action));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        T await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package hello.springtx.concurrent;
+
+import javax.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+낙관적 락 충돌(@Version)이 나면 트랜잭션을 처음부터 다시 실행한다.
+- 충돌은 커밋(flush) 시점에 드러나고, 그 트랜잭션은 이미 롤백 대상이다.
+  그래서 재시도는 반드시 새 트랜잭션이어야 하고, 이미 트랜잭션 안에서 호출하면 예외를 던진다.
+- 콜백은 엔티티를 다시 읽는 것부터 시작해야 한다. (이전 시도에서 읽은 엔티티를 재사용하면 또 충돌한다)
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetryTemplate {
+
+    private final TransactionTemplate txTemplate;
+    private final int maxAttempts;
+
+    public OptimisticLockRetryTemplate(PlatformTransactionManager txManager,
+                                       @Value("${tx.optimistic-retry.max-attempts:10}") int maxAttempts) {
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <T> T execute(TransactionCallback<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("낙관적 락 재시도는 트랜잭션 밖에서 호출해야 합니다.");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return txTemplate.execute(action);
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.info("낙관적 락 충돌, 다시 시도합니다. attempt = {}", attempt);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package hello.springtx.concurrent;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+트랜잭션 서비스(OrderService.order, MemberService.joinV1 등)를 다른 스레드에서 실행하는 실행기
+- executor.virtual-threads=true 면 작업마다 가상 스레드를 쓴다. (Java 21 필요: ./gradlew -Pjava21)
+- 아니면 executor.platform-threads 크기의 플랫폼 스레드 풀을 쓴다.
+
+트랜잭션 동기화 정보(TransactionSynchronizationManager)는 스레드 로컬이다.
+- 호출한 스레드의 트랜잭션은 작업 스레드로 넘어가지 않는다. 작업은 항상 자기 트랜잭션을 새로 시작한다.
+  (커넥션은 스레드 간에 공유하면 안 되므로 넘기는 것이 오히려 잘못이다)
+- 풀 스레드는 재사용되므로, 작업이 트랜잭션을 끝내지 않고 반환하면 다음 작업에 남지 않도록 롤백하고 커넥션을 반환한 뒤 정리한다.
+ */
+@Slf4j
+@Lazy
+@Component
+public class TransactionalExecutor {
+
+    private final ExecutorService executor;
+    @Getter
+    private final boolean virtualThreads;
+
+    public TransactionalExecutor(@Value("${executor.virtual-threads:false}") boolean virtualThreads,
+                                 @Value("${executor.platform-threads:10}") int platformThreads) {
+        this.virtualThreads = virtualThreads;
+        this.executor = virtualThreads ? newVirtualThreadPerTaskExecutor() : newPlatformThreadPool(platformThreads);
+        log.info("트랜잭션 실행기 virtualThreads = {}", virtualThreads);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.debug("진행 중인 트랜잭션은 작업 스레드로 넘어가지 않습니다. 작업은 별도의 트랜잭션으로 실행됩니다.");
+        }
+        return CompletableFuture.supplyAsync(() -> call(task), executor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T call(Callable<T> task) {
+        clearLeakedTransaction("이전 작업");
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            clearLeakedTransaction("현재 작업");
+        }
+    }
+
+    private static void clearLeakedTransaction(String owner) {
+        Map<Object, Object> resources = TransactionSynchronizationManager.getResourceMap();
+        if (!resources.isEmpty()) {
+            log.warn("{}이 정리하지 않은 트랜잭션 리소스를 롤백하고 해제합니다. resources = {}", owner, resources.keySet());
+            Map<Object, Object> leaked = new LinkedHashMap<>(resources);
+            leaked.keySet().forEach(TransactionSynchronizationManager::unbindResourceIfPossible);
+            // JPA 트랜잭션이 노출한 커넥션(EntityManagerFactory 의 DataSource 키)은 EntityManager 를 닫을 때 같이 반환된다.
+            Set<Object> ownedByEntityManager = new HashSet<>();
+            leaked.forEach((key, resource) -> {
+                if (resource instanceof EntityManagerHolder && key instanceof EntityManagerFactoryInfo) {
+                    ownedByEntityManager.add(((EntityManagerFactoryInfo) key).getDataSource());
+                }
+            });
+            leaked.forEach((key, resource) -> {
+                if (!ownedByEntityManager.contains(key)) {
+                    release(key, resource);
+                }
+            });
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            log.warn("{}이 정리하지 않은 트랜잭션 동기화를 해제합니다.", owner);
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    // 바인딩만 풀면 커넥션이 풀로 돌아가지 않으므로, 롤백하고 닫아서 반환한다.
+    private static void release(Object key, Object resource) {
+        try {
+            if (resource instanceof EntityManagerHolder) {
+                EntityManager em = ((EntityManagerHolder) resource).getEntityManager();
+                if (em.isOpen() && em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                EntityManagerFactoryUtils.closeEntityManager(em);
+            } else if (resource instanceof ConnectionHolder && key instanceof DataSource) {
+                ConnectionHolder holder = (ConnectionHolder) resource;
+                Connection con = holder.getConnectionHandle() != null ? holder.getConnection() : null;
+                if (con != null && !con.isClosed()) {
+                    if (!con.getAutoCommit()) {
+                        con.rollback();
+                    }
+                    DataSourceUtils.releaseConnection(con, (DataSource) key);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.warn("남은 트랜잭션 리소스 정리 실패 resource = {}", key, e);
+        }
+    }
+
+    private static ExecutorService newPlatformThreadPool(int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tx-executor-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Java 11 로도 컴파일되도록 리플렉션으로 호출한다.
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드는 Java 21 이상에서 사용할 수 있습니다. (./gradlew -Pjava21)", e);
+        }
+    }
+}
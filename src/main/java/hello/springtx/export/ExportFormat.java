@@ -0,0 +1,6 @@
+package hello.springtx.export;
+
+public enum ExportFormat {
+    NDJSON, // 한 줄에 JSON 객체 하나
+    CSV // 첫 줄은 컬럼 이름
+}
@@ -0,0 +1,109 @@
+package hello.springtx.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// 한 행씩 바로 OutputStream 에 쓴다. 행을 모아두지 않으므로 행 수와 상관없이 메모리 사용량이 일정하다.
+public class ExportWriter {
+
+    private final Writer out;
+    private final ExportFormat format;
+    private final String[] columns;
+
+    public ExportWriter(OutputStream out, ExportFormat format, String... columns) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.format = format;
+        this.columns = columns;
+        if (format == ExportFormat.CSV) {
+            writeCsv(columns);
+        }
+    }
+
+    public void write(Object... values) {
+        if (format == ExportFormat.CSV) {
+            writeCsv(values);
+        } else {
+            writeJson(values);
+        }
+    }
+
+    // 호출한 쪽의 OutputStream 은 닫지 않는다.
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsv(Object[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(csv(values[i]));
+        }
+        writeLine(line);
+    }
+
+    private void writeJson(Object[] values) {
+        StringBuilder line = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(json(columns[i])).append(':').append(values[i] instanceof Number ? values[i] : json(values[i]));
+        }
+        writeLine(line.append('}'));
+    }
+
+    private void writeLine(CharSequence line) {
+        try {
+            out.append(line).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String text = value.toString();
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
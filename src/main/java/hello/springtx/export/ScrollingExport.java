@@ -0,0 +1,31 @@
+package hello.springtx.export;
+
+import javax.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+/*
+JPQL 스칼라 조회 결과를 forward-only 커서로 읽으면서 한 행씩 내보낸다.
+- 엔티티가 아니라 컬럼 값만 조회하므로 영속성 컨텍스트에 아무것도 쌓이지 않고 변경 감지도 일어나지 않는다.
+- fetchSize 만큼씩 드라이버가 나눠서 가져온다. (MySQL 은 Integer.MIN_VALUE 를 줘야 스트리밍한다)
+- 호출하는 쪽에서 readOnly 트랜잭션을 열어야 한다.
+ */
+public final class ScrollingExport {
+
+    private ScrollingExport() {
+    }
+
+    public static long export(EntityManager em, String jpql, int fetchSize, ExportWriter writer) {
+        Query<?> query = em.createQuery(jpql).unwrap(Query.class);
+        long count = 0;
+        try (ScrollableResults rows = query.setFetchSize(fetchSize).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                writer.write(rows.get());
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+}
@@ -0,0 +1,124 @@
+package hello.springtx.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/*
+커넥션 고갈 감지 (tx.connection-guard.enabled=true 일 때만 동작)
+- MemberService(REQUIRED) -> LogRepository(REQUIRES_NEW) 는 스레드 하나가 커넥션 두 개를 잡는다.
+- 동시 요청 수가 풀 크기/2 를 넘으면 모든 스레드가 커넥션 하나씩 쥔 채 두 번째 커넥션을 기다리게 되고,
+  connectionTimeout(기본 30초)까지 멈춰 있다가 실패한다.
+- 이미 커넥션을 쥔 스레드가 하나 더 요청하는데 풀에 남은 커넥션이 없을 때
+  - 그 풀의 커넥션을 모두 "추가 커넥션을 기다리는 스레드"가 쥐고 있으면 아무도 반환하지 않으므로(교착) 바로 예외를 던진다.
+  - 아니면 보통의 경합이다. 다른 스레드가 반환하기를 wait 만큼 기다리고, 그래도 없으면 예외를 던진다.
+- 커넥션을 얻을 때마다 그 스레드가 동시에 쥔 커넥션 수(depth)를 히스토그램으로 센다.
+ */
+@Slf4j
+@Component
+public class ConnectionDepthGuard implements BeanPostProcessor {
+
+    private static final int MAX_TRACKED_DEPTH = 16; // 이보다 깊으면 마지막 칸에 센다
+
+    private final boolean enabled;
+    private final int maxDepth;
+    private final long waitNanos;
+    private final AtomicLongArray depthCounts = new AtomicLongArray(MAX_TRACKED_DEPTH + 1);
+
+    public ConnectionDepthGuard(@Value("${tx.connection-guard.enabled:false}") boolean enabled,
+                                @Value("${tx.connection-guard.max-depth:0}") int maxDepth,
+                                @Value("${tx.connection-guard.wait:500ms}") Duration wait) {
+        this.enabled = enabled;
+        this.maxDepth = maxDepth;
+        this.waitNanos = wait.toNanos();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof HikariDataSource) {
+            log.info("커넥션 고갈 감지 적용 dataSource = {}", beanName);
+            return new GuardedDataSource((HikariDataSource) bean, this);
+        }
+        return bean;
+    }
+
+    // depth -> 그 depth 로 커넥션을 얻은 횟수 (depth 순)
+    public Map<Integer, Long> getDepthHistogram() {
+        Map<Integer, Long> histogram = new TreeMap<>();
+        for (int depth = 1; depth <= MAX_TRACKED_DEPTH; depth++) {
+            long count = depthCounts.get(depth);
+            if (count > 0) {
+                histogram.put(depth, count);
+            }
+        }
+        return histogram;
+    }
+
+    // 지금까지 한 스레드가 동시에 쥐었던 커넥션 수의 최대값
+    public int getPeakDepth() {
+        for (int depth = MAX_TRACKED_DEPTH; depth > 0; depth--) {
+            if (depthCounts.get(depth) > 0) {
+                return depth;
+            }
+        }
+        return 0;
+    }
+
+    // heldByWaiters: 이 풀에서 추가 커넥션을 기다리는 스레드들이 쥔 커넥션 수 (GuardedDataSource 가 풀마다 가진다)
+    void check(HikariDataSource dataSource, AtomicInteger heldByWaiters, int heldDepth) {
+        if (maxDepth > 0 && heldDepth >= maxDepth) {
+            throw new ConnectionStarvationException(
+                    "스레드당 커넥션 수 제한 초과: held=" + heldDepth + ", max-depth=" + maxDepth);
+        }
+        if (heldDepth == 0 || !isExhausted(dataSource)) {
+            return;
+        }
+
+        heldByWaiters.addAndGet(heldDepth);
+        try {
+            long deadline = System.nanoTime() + waitNanos;
+            while (isExhausted(dataSource)) {
+                if (heldByWaiters.get() >= dataSource.getMaximumPoolSize()) {
+                    throw starvation(dataSource, heldDepth, "풀의 커넥션을 모두 추가 커넥션을 기다리는 스레드가 쥐고 있습니다.");
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    throw starvation(dataSource, heldDepth, TimeUnit.NANOSECONDS.toMillis(waitNanos) + "ms 동안 반환된 커넥션이 없습니다.");
+                }
+                // 풀은 반환을 알려주지 않으므로 짧게 쉬면서 다시 본다
+                Thread.sleep(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw starvation(dataSource, heldDepth, "커넥션을 기다리다 인터럽트되었습니다.");
+        } finally {
+            heldByWaiters.addAndGet(-heldDepth);
+        }
+    }
+
+    void acquired(int depth) {
+        depthCounts.incrementAndGet(Math.min(depth, MAX_TRACKED_DEPTH));
+    }
+
+    private static ConnectionStarvationException starvation(HikariDataSource dataSource, int heldDepth, String reason) {
+        return new ConnectionStarvationException(
+                "커넥션 고갈: 이 스레드가 커넥션 " + heldDepth + "개를 쥔 채로 추가 커넥션을 요청했지만 풀("
+                        + dataSource.getPoolName() + ", max=" + dataSource.getMaximumPoolSize()
+                        + ")에 남은 커넥션이 없습니다. " + reason + " REQUIRES_NEW 중첩을 확인하세요.");
+    }
+
+    private boolean isExhausted(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null
+                && pool.getIdleConnections() == 0
+                && pool.getTotalConnections() >= dataSource.getMaximumPoolSize();
+    }
+}
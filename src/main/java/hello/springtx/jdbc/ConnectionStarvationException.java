@@ -0,0 +1,10 @@
+package hello.springtx.jdbc;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+
+public class ConnectionStarvationException extends DataAccessResourceFailureException {
+
+    public ConnectionStarvationException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,71 @@
+package hello.springtx.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/*
+스레드별로 쥐고 있는 커넥션 수를 세는 DataSource. 커넥션을 close 하면 수를 줄인다.
+- 커넥션은 얻은 스레드(소유자)의 수에 센다. 다른 스레드에서 close 해도 소유자의 수가 줄어들도록 수는 AtomicInteger 로 둔다.
+- 추가 커넥션을 기다리는 스레드가 쥔 커넥션 수(waiters)는 풀마다 따로 센다. (레플리카 풀 등 다른 풀의 대기와 섞이지 않게)
+ */
+class GuardedDataSource extends DelegatingDataSource implements Closeable {
+
+    private final HikariDataSource hikariDataSource;
+    private final ConnectionDepthGuard guard;
+    private final ThreadLocal<AtomicInteger> depth = ThreadLocal.withInitial(AtomicInteger::new);
+    private final AtomicInteger heldByWaiters = new AtomicInteger();
+
+    GuardedDataSource(HikariDataSource hikariDataSource, ConnectionDepthGuard guard) {
+        super(hikariDataSource);
+        this.hikariDataSource = hikariDataSource;
+        this.guard = guard;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        AtomicInteger held = depth.get();
+        guard.check(hikariDataSource, heldByWaiters, held.get());
+        return track(super.getConnection(), held);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        AtomicInteger held = depth.get();
+        guard.check(hikariDataSource, heldByWaiters, held.get());
+        return track(super.getConnection(username, password), held);
+    }
+
+    @Override
+    public void close() {
+        hikariDataSource.close();
+    }
+
+    private Connection track(Connection target, AtomicInteger held) {
+        guard.acquired(held.incrementAndGet());
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                        held.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,64 @@
+package hello.springtx.jdbc;
+
+import hello.springtx.propagation.JdbcLogRepository;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/*
+트랜잭션 매니저 두 개 사용 (log.jdbc.enabled=true 일 때만 동작)
+- transactionManager(@Primary): JpaTransactionManager. 한정자 없는 @Transactional 은 지금처럼 이쪽을 쓴다.
+- jdbcTransactionManager: JdbcTransactionManager. @Transactional(JDBC) 로 고른다. EntityManager 를 만들지 않는다.
+- JDBC 쪽은 같은 커넥션 풀을 쓰지만 DataSource 를 한 번 감싸서 트랜잭션 리소스 키를 나눈다.
+  JPA 트랜잭션이 바인딩한 커넥션을 JDBC 매니저가 자기 트랜잭션으로 착각해서 중간에 커밋하는 일을 막기 위해서다.
+  그래서 JDBC 트랜잭션은 JPA 트랜잭션 안에서 시작해도 항상 별도의 커넥션, 별도의 물리 트랜잭션이 된다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "log.jdbc.enabled", havingValue = "true")
+public class JdbcTransactionManagerConfig {
+
+    public static final String JDBC = "jdbcTransactionManager";
+
+    private final DataSource jdbcDataSource;
+
+    public JdbcTransactionManagerConfig(DataSource dataSource) {
+        this.jdbcDataSource = new DelegatingDataSource(dataSource);
+    }
+
+    // JPA 자동 설정의 transactionManager 는 다른 트랜잭션 매니저가 있으면 만들어지지 않으므로 직접 등록한다.
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                         ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean(JDBC)
+    public PlatformTransactionManager jdbcTransactionManager() {
+        return new JdbcTransactionManager(jdbcDataSource);
+    }
+
+    @Bean
+    @Primary
+    public LogRepository jdbcLogRepository(EntityManager em,
+                                           @Value("${spring.jpa.properties.hibernate.id.optimizer.pooled.preferred:pooled}") String optimizer) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(jdbcDataSource);
+        return new JdbcLogRepository(em, jdbcTemplate, PooledSequenceIdAllocator.forEntity(jdbcTemplate, Log.class, optimizer));
+    }
+}
@@ -0,0 +1,56 @@
+package hello.springtx.jdbc;
+
+import java.lang.reflect.Field;
+import javax.persistence.SequenceGenerator;
+import org.springframework.jdbc.core.JdbcOperations;
+
+/*
+JDBC 로 INSERT 할 때 쓰는 id 할당기. Hibernate 의 pooled-lo 최적화와 같은 방식이다.
+- 시퀀스 값 v 를 한 번 읽으면 v ~ v + allocationSize - 1 을 메모리에서 나눠준다.
+- 시퀀스는 allocationSize 만큼 증가하도록 만들어져 있어야 한다. (@SequenceGenerator allocationSize 와 같은 값)
+  그래야 같은 시퀀스를 쓰는 Hibernate 와 블록이 겹치지 않는다.
+- 그래서 시퀀스 이름과 allocationSize 는 엔티티의 @SequenceGenerator 에서 읽는다. (forEntity)
+- Hibernate 가 pooled 최적화를 쓰면 v 를 블록의 끝으로 해석해서 이 할당기의 블록과 겹친다. 그래서 pooled-lo 가 아니면 시작할 때 실패한다.
+- 시퀀스 조회 문법은 H2 기준이다.
+ */
+public class PooledSequenceIdAllocator {
+
+    public static final String POOLED_LO = "pooled-lo";
+
+    private final JdbcOperations jdbcOperations;
+    private final String nextValueSql;
+    private final int allocationSize;
+
+    private long next;
+    private long limit;
+
+    public PooledSequenceIdAllocator(JdbcOperations jdbcOperations, String sequenceName, int allocationSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.nextValueSql = "select next value for " + sequenceName;
+        this.allocationSize = allocationSize;
+    }
+
+    // 엔티티 id 의 @SequenceGenerator 를 읽어서 만든다. optimizer 는 hibernate.id.optimizer.pooled.preferred 설정값이다.
+    public static PooledSequenceIdAllocator forEntity(JdbcOperations jdbcOperations, Class<?> entityClass, String optimizer) {
+        if (!POOLED_LO.equals(optimizer)) {
+            throw new IllegalStateException("JDBC id 할당은 hibernate.id.optimizer.pooled.preferred=" + POOLED_LO
+                    + " 에서만 Hibernate 와 블록이 겹치지 않습니다. optimizer = " + optimizer);
+        }
+        for (Field field : entityClass.getDeclaredFields()) {
+            SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+            if (generator != null) {
+                return new PooledSequenceIdAllocator(jdbcOperations, generator.sequenceName(), generator.allocationSize());
+            }
+        }
+        throw new IllegalArgumentException("@SequenceGenerator 가 없는 엔티티입니다. entity = " + entityClass.getName());
+    }
+
+    public synchronized long next() {
+        if (next >= limit) {
+            Long lo = jdbcOperations.queryForObject(nextValueSql, Long.class);
+            next = lo;
+            limit = lo + allocationSize;
+        }
+        return next++;
+    }
+}
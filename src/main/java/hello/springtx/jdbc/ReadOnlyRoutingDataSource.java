@@ -0,0 +1,20 @@
+package hello.springtx.jdbc;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+readOnly 트랜잭션은 replica 로, 나머지는 primary 로 보낸다.
+- 트랜잭션 매니저는 커넥션을 얻은 다음에 readOnly 여부를 동기화 매니저에 등록한다.
+- 그래서 이 DataSource 는 항상 LazyConnectionDataSourceProxy 뒤에 둬서, 실제 커넥션을 첫 SQL 실행 시점에 얻게 해야 한다.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+}
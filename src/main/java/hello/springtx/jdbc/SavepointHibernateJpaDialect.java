@@ -0,0 +1,141 @@
+package hello.springtx.jdbc;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+
+/*
+JpaTransactionManager 에서 NESTED(세이브포인트)를 쓸 수 있게 하는 JpaDialect
+- 기본 HibernateJpaDialect 는 SavepointManager 를 제공하지 않아서 NESTED 가 NestedTransactionNotSupportedException 으로 실패한다.
+- 세이브포인트는 트랜잭션의 JDBC 커넥션에 직접 만든다. 커넥션을 하나 더 쓰지 않고, 바깥 트랜잭션을 보류하지도 않는다.
+- JDBC 롤백만으로는 영속성 컨텍스트가 되돌아가지 않으므로 Hibernate 세션도 맞춰준다.
+  1. 세이브포인트를 만들기 전에 flush 해서, 그 뒤에 쌓이는 쓰기 작업은 모두 안쪽 트랜잭션의 것이 되게 한다.
+  2. 세이브포인트로 롤백하면 아직 flush 안 된 쓰기 작업을 버리고, 안쪽에서 새로 영속화된 엔티티를 준영속으로 만든다.
+  3. 세이브포인트 전부터 있던 엔티티를 안쪽에서 수정하거나 삭제했으면 DB 에서 다시 읽어(refresh) 세이브포인트 때의 값으로 되돌린다.
+     되돌리지 않으면 바깥 트랜잭션이 커밋할 때 롤백된 변경이 다시 쓰이거나, 삭제 상태가 그대로 남는다.
+ */
+@Slf4j
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return new SavepointTransactionData(transactionData, getSession(entityManager));
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof SavepointTransactionData) {
+            transactionData = ((SavepointTransactionData) transactionData).delegate;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    // JpaTransactionManager 는 트랜잭션 데이터가 SavepointManager 이면 NESTED 에 그것을 쓴다.
+    @RequiredArgsConstructor
+    private static class SavepointTransactionData implements SavepointManager {
+
+        private final Object delegate;
+        private final SessionImplementor session;
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            try {
+                session.flush();
+                Savepoint savepoint = session.doReturningWork(connection -> connection.setSavepoint());
+                return new SessionSavepoint(savepoint, managedEntities());
+            } catch (HibernateException | PersistenceException e) {
+                throw new CannotCreateTransactionException("Could not create JDBC savepoint", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            SessionSavepoint sessionSavepoint = (SessionSavepoint) savepoint;
+            try {
+                session.getActionQueue().clear();
+                session.doWork(connection -> connection.rollback(sessionSavepoint.savepoint));
+            } catch (HibernateException | PersistenceException e) {
+                throw new TransactionSystemException("Could not roll back to JDBC savepoint", e);
+            }
+            for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+                if (!sessionSavepoint.managed.containsKey(entry.getKey())) {
+                    session.evict(entry.getKey());
+                }
+            }
+            for (Map.Entry<Object, Object[]> entry : sessionSavepoint.managed.entrySet()) {
+                restore(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // 세이브포인트 뒤에 바뀐 엔티티만 다시 읽는다. 세이브포인트 전에 flush 했으므로 DB 값이 곧 세이브포인트 때의 값이다.
+        @SuppressWarnings("deprecation")
+        private void restore(Object entity, Object[] loadedState) {
+            try {
+                EntityEntry entry = session.getPersistenceContextInternal().getEntry(entity);
+                if (entry == null) {
+                    // 안쪽에서 삭제하고 flush 까지 해서 영속성 컨텍스트에서 빠졌다. 삭제는 롤백됐으므로 다시 붙인다.
+                    session.lock(entity, LockMode.NONE);
+                } else if (entry.getStatus() == Status.DELETED) {
+                    entry.setStatus(Status.MANAGED);
+                } else if (entry.getLoadedState() == loadedState && !isDirty(entity, entry)) {
+                    return;
+                }
+                session.refresh(entity);
+            } catch (HibernateException | PersistenceException e) {
+                throw new TransactionSystemException("Could not restore entity state after rollback to JDBC savepoint", e);
+            }
+        }
+
+        private boolean isDirty(Object entity, EntityEntry entry) {
+            EntityPersister persister = entry.getPersister();
+            return entry.getLoadedState() != null
+                    && persister.findDirty(persister.getPropertyValues(entity), entry.getLoadedState(), entity, session) != null;
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            try {
+                session.doWork(connection -> connection.releaseSavepoint(((SessionSavepoint) savepoint).savepoint));
+            } catch (HibernateException | PersistenceException e) {
+                log.debug("Could not explicitly release JDBC savepoint", e);
+            }
+        }
+
+        // flush 하면 EntityEntry 의 loadedState 가 새 배열로 바뀌므로, 배열을 같이 기억해서 안쪽에서 flush 된 변경도 알아챈다.
+        private Map<Object, Object[]> managedEntities() {
+            Map<Object, Object[]> managed = new IdentityHashMap<>();
+            for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+                if (entry.getValue().getStatus() == Status.MANAGED) {
+                    managed.put(entry.getKey(), entry.getValue().getLoadedState());
+                }
+            }
+            return managed;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class SessionSavepoint {
+
+        private final Savepoint savepoint;
+        private final Map<Object, Object[]> managed; // 세이브포인트를 만들 때 영속 상태였던 엔티티와 그때의 loadedState
+    }
+}
@@ -0,0 +1,29 @@
+package hello.springtx.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+// EntityManagerFactory 가 초기화되기 전에 SavepointHibernateJpaDialect 를 넣는다. JpaTransactionManager 는 EntityManagerFactory 의 JpaDialect 를 쓴다.
+// 모든 EntityManagerFactory 의 JpaDialect 를 바꾸므로 tx.jpa-savepoints.enabled=true 일 때만 적용한다. (기본 OFF)
+@Slf4j
+@Component
+public class SavepointJpaDialectInstaller implements BeanPostProcessor {
+
+    private final boolean enabled;
+
+    public SavepointJpaDialectInstaller(@Value("${tx.jpa-savepoints.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof AbstractEntityManagerFactoryBean) {
+            log.info("JPA 세이브포인트(NESTED) 지원 적용 entityManagerFactory = {}", beanName);
+            ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new SavepointHibernateJpaDialect());
+        }
+        return bean;
+    }
+}
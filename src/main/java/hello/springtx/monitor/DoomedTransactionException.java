@@ -0,0 +1,11 @@
+package hello.springtx.monitor;
+
+import org.springframework.transaction.UnexpectedRollbackException;
+
+// rollbackOnly 로 마크된 트랜잭션에 참여하려다 바로 중단됐을 때. 커밋 때 받을 UnexpectedRollbackException 을 미리 받는 것이다.
+public class DoomedTransactionException extends UnexpectedRollbackException {
+
+    public DoomedTransactionException(String msg) {
+        super(msg);
+    }
+}
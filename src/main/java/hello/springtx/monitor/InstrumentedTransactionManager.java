@@ -0,0 +1,142 @@
+package hello.springtx.monitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+트랜잭션 매니저를 감싸서 begin / commit / rollback 시간을 잰다.
+- 스레드별로 진행 중인 논리 트랜잭션을 스택으로 관리한다.
+- REQUIRES_NEW, NOT_SUPPORTED 처럼 기존 트랜잭션을 보류하는 경우, 보류된 시간은 바깥 트랜잭션 이름으로 기록한다.
+- 새 트랜잭션이 시작되면 RollbackCostProfiler 에 알려서 롤백 비용을 잴 수 있게 한다.
+- failFastRollbackOnly 면, 이미 rollbackOnly 로 마크된 트랜잭션에 참여(REQUIRED, SUPPORTS, MANDATORY)하려는 호출을
+  DoomedTransactionException 으로 바로 중단한다. 어차피 커밋 때 UnexpectedRollbackException 으로 롤백될 작업이
+  DB 시간과 커넥션을 더 쓰지 않게 한다. 중단 횟수는 MethodTransactionMetrics.doomedAborts 로 남는다.
+ */
+@RequiredArgsConstructor
+public class InstrumentedTransactionManager implements PlatformTransactionManager {
+
+    @Getter
+    private final PlatformTransactionManager delegate;
+    private final TransactionMetrics metrics;
+    private final RollbackCostProfiler rollbackCostProfiler;
+    private final boolean failFastRollbackOnly;
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        Deque<Frame> stack = frames.get();
+        MethodTransactionMetrics target = metrics.of(definition == null ? null : definition.getName());
+        MethodTransactionMetrics suspended = suspends(definition) && !stack.isEmpty() ? stack.peek().metrics : null;
+        if (failFastRollbackOnly && joinsDoomedTransaction(definition, stack)) {
+            target.getDoomedAborts().increment();
+            throw new DoomedTransactionException("rollbackOnly 로 마크된 트랜잭션에 참여하지 않고 중단합니다. name = " + target.getName());
+        }
+
+        RollbackCause.take(); // 아무도 꺼내 가지 않은 이전 예외는 이 트랜잭션과 상관없다
+
+        long start = System.nanoTime();
+        TransactionStatus status = delegate.getTransaction(definition);
+        target.getBegin().record(System.nanoTime() - start);
+        if (status.isNewTransaction()) {
+            rollbackCostProfiler.begin(definition == null ? null : definition.getName());
+        }
+
+        stack.push(new Frame(status, target, suspended, start));
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Frame frame = pop(status);
+        if (frame != null && status.isRollbackOnly()) {
+            frame.metrics.getRollbackOnlyMarks().increment();
+        }
+
+        RollbackCause.take();
+
+        long start = System.nanoTime();
+        try {
+            delegate.commit(status);
+        } finally {
+            complete(frame, start, true);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Frame frame = pop(status);
+        rollbackCostProfiler.rollingBack(RollbackCause.take());
+
+        long start = System.nanoTime();
+        try {
+            delegate.rollback(status);
+        } finally {
+            complete(frame, start, false);
+        }
+    }
+
+    private void complete(Frame frame, long start, boolean commit) {
+        if (frame == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        (commit ? frame.metrics.getCommit() : frame.metrics.getRollback()).record(end - start);
+        if (frame.suspended != null) {
+            frame.suspended.getSuspended().record(end - frame.begin);
+        }
+    }
+
+    // 보통은 스택 맨 위가 완료되지만, 순서가 어긋난 프로그래밍 방식 사용도 받아준다.
+    private Frame pop(TransactionStatus status) {
+        Deque<Frame> stack = frames.get();
+        for (Iterator<Frame> it = stack.iterator(); it.hasNext(); ) {
+            Frame frame = it.next();
+            if (frame.status == status) {
+                it.remove();
+                if (stack.isEmpty()) {
+                    frames.remove();
+                }
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    // 스택 맨 위가 지금 진행 중인 트랜잭션이다. 그 상태가 rollbackOnly 면(안쪽 참여자가 롤백했거나 setRollbackOnly) 커밋될 수 없다.
+    private static boolean joinsDoomedTransaction(TransactionDefinition definition, Deque<Frame> stack) {
+        if (stack.isEmpty() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        int propagation = definition == null ? TransactionDefinition.PROPAGATION_REQUIRED : definition.getPropagationBehavior();
+        boolean joins = propagation == TransactionDefinition.PROPAGATION_REQUIRED
+                || propagation == TransactionDefinition.PROPAGATION_SUPPORTS
+                || propagation == TransactionDefinition.PROPAGATION_MANDATORY;
+        return joins && stack.peek().status.isRollbackOnly();
+    }
+
+    private static boolean suspends(TransactionDefinition definition) {
+        if (definition == null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        int propagation = definition.getPropagationBehavior();
+        return propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                || propagation == TransactionDefinition.PROPAGATION_NOT_SUPPORTED;
+    }
+
+    @RequiredArgsConstructor
+    private static class Frame {
+
+        private final TransactionStatus status;
+        private final MethodTransactionMetrics metrics;
+        private final MethodTransactionMetrics suspended;
+        private final long begin;
+    }
+}
@@ -0,0 +1,28 @@
+package hello.springtx.monitor;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+// 트랜잭션 이름(= @Transactional 메서드) 하나에 대한 지표
+@Getter
+public class MethodTransactionMetrics {
+
+    private final String name;
+    private final LatencyHistogram begin = new LatencyHistogram();
+    private final LatencyHistogram commit = new LatencyHistogram();
+    private final LatencyHistogram rollback = new LatencyHistogram();
+    private final LatencyHistogram suspended = new LatencyHistogram(); // REQUIRES_NEW 등으로 이 트랜잭션이 보류된 시간
+    private final LongAdder rollbackOnlyMarks = new LongAdder(); // 커밋을 시도했지만 rollbackOnly 로 마크되어 있던 횟수
+    private final LongAdder doomedAborts = new LongAdder(); // rollbackOnly 인 트랜잭션에 참여하려다 바로 중단된 횟수 (fail-fast)
+
+    MethodTransactionMetrics(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name + " begin[" + begin.snapshot() + "] commit[" + commit.snapshot() + "] rollback["
+                + rollback.snapshot() + "] suspended[" + suspended.snapshot() + "] rollbackOnly="
+                + rollbackOnlyMarks.sum() + " doomedAborts=" + doomedAborts.sum();
+    }
+}
@@ -0,0 +1,26 @@
+package hello.springtx.monitor;
+
+/*
+롤백을 일으킨 예외를 스레드별로 잠깐 보관한다.
+- @Transactional 메서드에서 예외가 나가면 TransactionAttribute.rollbackOn(ex) 가 호출되는데, 이때 롤백 대상이면 기록한다.
+- 바로 이어서 호출되는 InstrumentedTransactionManager.rollback 이 꺼내서 그 트랜잭션(RollbackCostProfiler 의 동기화)에 옮긴다.
+- 계측되지 않는 트랜잭션 매니저의 경계처럼 아무도 꺼내 가지 않은 값은, 다음 트랜잭션의 시작과 커밋에서 버린다.
+  풀 스레드에 남은 예외가 상관없는 다음 롤백의 원인으로 잡히지 않게 한다.
+ */
+final class RollbackCause {
+
+    private static final ThreadLocal<Throwable> CAUSE = new ThreadLocal<>();
+
+    private RollbackCause() {
+    }
+
+    static void record(Throwable ex) {
+        CAUSE.set(ex);
+    }
+
+    static Throwable take() {
+        Throwable ex = CAUSE.get();
+        CAUSE.remove();
+        return ex;
+    }
+}
@@ -0,0 +1,73 @@
+package hello.springtx.monitor;
+
+import java.lang.reflect.Method;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.interceptor.DelegatingTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/*
+@Transactional 의 TransactionAttributeSource 를 감싸서, 롤백 판단(rollbackOn)에 걸린 예외를 RollbackCause 에 남긴다.
+- 트랜잭션 어드바이저가 만들어지기 전에 등록되어야 하므로 PriorityOrdered 로 먼저 등록한다.
+ */
+@Component
+public class RollbackCauseCapture implements BeanPostProcessor, PriorityOrdered {
+
+    private final boolean enabled;
+
+    public RollbackCauseCapture(@Value("${tx.metrics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof TransactionAttributeSource && !(bean instanceof RecordingAttributeSource)) {
+            return new RecordingAttributeSource((TransactionAttributeSource) bean);
+        }
+        return bean;
+    }
+
+    // TransactionAttributeRegistry 가 이 래퍼를 바깥에서 한 번 더 감싸도록 먼저 적용한다.
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @RequiredArgsConstructor
+    private static class RecordingAttributeSource implements TransactionAttributeSource {
+
+        private final TransactionAttributeSource delegate;
+
+        @Override
+        public boolean isCandidateClass(Class<?> targetClass) {
+            return delegate.isCandidateClass(targetClass);
+        }
+
+        @Override
+        public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+            TransactionAttribute attribute = delegate.getTransactionAttribute(method, targetClass);
+            return attribute == null ? null : new RecordingAttribute(attribute);
+        }
+    }
+
+    private static class RecordingAttribute extends DelegatingTransactionAttribute {
+
+        RecordingAttribute(TransactionAttribute delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean rollbackOn(Throwable ex) {
+            boolean rollback = super.rollbackOn(ex);
+            if (rollback) {
+                RollbackCause.record(ex);
+            }
+            return rollback;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package hello.springtx.monitor;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+// (트랜잭션 이름, 예외 타입) 하나에 대해 롤백으로 버려진 작업량
+@Getter
+public class RollbackCost {
+
+    private final String name;
+    private final String exceptionType;
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder statements = new LongAdder(); // 롤백 전까지 실행한 SQL 문장 수
+    private final LongAdder entityWrites = new LongAdder(); // 롤백 전까지 저장/변경/삭제한 엔티티 수
+    private final LatencyHistogram elapsed = new LatencyHistogram(); // 트랜잭션 시작부터 롤백 직전까지 걸린 시간
+    private volatile String lastMessage;
+
+    RollbackCost(String name, String exceptionType) {
+        this.name = name;
+        this.exceptionType = exceptionType;
+    }
+
+    void record(long statements, long entityWrites, long elapsedNanos, String message) {
+        this.rollbacks.increment();
+        this.statements.add(statements);
+        this.entityWrites.add(entityWrites);
+        this.elapsed.record(elapsedNanos);
+        this.lastMessage = message;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + exceptionType + "(\"" + lastMessage + "\") rollbacks=" + rollbacks.sum()
+                + " statements=" + statements.sum() + " entityWrites=" + entityWrites.sum()
+                + " elapsed[" + elapsed.snapshot() + "]";
+    }
+}
@@ -0,0 +1,98 @@
+package hello.springtx.monitor;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+롤백 비용 프로파일러
+- 체크 예외는 커밋되고 런타임 예외는 롤백된다. 롤백되면 그 전까지 한 작업은 모두 버려진다.
+- 새 트랜잭션마다 TransactionSynchronization 을 등록해서, 롤백으로 끝나면 그동안 실행한 SQL 문장 수,
+  저장/변경/삭제한 엔티티 수, 걸린 시간을 (트랜잭션 이름, 예외 타입) 별로 모은다.
+  예) hello.springtx.order.OrderService.order | java.lang.RuntimeException
+- 작업량은 SessionWorkCounter 로 센다. JDBC 배치는 한 문장으로 세므로, 행 수는 엔티티 수를 본다.
+- 같은 스레드에서 안쪽 REQUIRES_NEW 트랜잭션이 한 작업도 바깥 트랜잭션의 작업량에 포함된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollbackCostProfiler {
+
+    static final String UNKNOWN = "(unknown)";
+
+    private final Map<String, RollbackCost> costs = new ConcurrentHashMap<>();
+    private final SessionWorkCounter workCounter;
+
+    public Optional<RollbackCost> find(String name, Class<? extends Throwable> exceptionType) {
+        return Optional.ofNullable(costs.get(key(name, exceptionType.getName())));
+    }
+
+    // 키 순으로 정렬한 읽기 전용 사본
+    public Map<String, RollbackCost> getAll() {
+        return new TreeMap<>(costs);
+    }
+
+    public void reset() {
+        costs.clear();
+    }
+
+    // 새 트랜잭션이 시작될 때 InstrumentedTransactionManager 가 호출한다.
+    void begin(String name) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new Synchronization(name == null ? TransactionMetrics.UNNAMED : name, workCounter.current()));
+        }
+    }
+
+    // 롤백 직전에 InstrumentedTransactionManager 가 호출한다. 참여 중인 트랜잭션이 롤백되면(rollbackOnly 표시) 바깥 물리 트랜잭션의 원인이 된다.
+    // 가장 먼저 롤백을 일으킨 예외를 원인으로 본다.
+    void rollingBack(Throwable cause) {
+        if (cause == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Synchronization && ((Synchronization) synchronization).cause == null) {
+                ((Synchronization) synchronization).cause = cause;
+            }
+        }
+    }
+
+    private static String key(String name, String exceptionType) {
+        return name + " | " + exceptionType;
+    }
+
+    @RequiredArgsConstructor
+    private class Synchronization implements TransactionSynchronization {
+
+        private final String name;
+        private final SessionWorkCounter.Work before;
+        private final long begin = System.nanoTime();
+        private long end;
+        private Throwable cause;
+
+        @Override
+        public void beforeCompletion() {
+            end = System.nanoTime();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_ROLLED_BACK) {
+                return;
+            }
+            long elapsed = (end == 0 ? System.nanoTime() : end) - begin;
+            SessionWorkCounter.Work work = workCounter.current().minus(before);
+            String exceptionType = cause == null ? UNKNOWN : cause.getClass().getName();
+
+            RollbackCost cost = costs.computeIfAbsent(key(name, exceptionType), absent -> new RollbackCost(name, exceptionType));
+            cost.record(work.getStatements(), work.getEntityWrites(), elapsed, cause == null ? null : cause.getMessage());
+            log.debug("롤백 비용 {}", cost);
+        }
+    }
+}
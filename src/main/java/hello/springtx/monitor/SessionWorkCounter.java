@@ -0,0 +1,214 @@
+package hello.springtx.monitor;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.EntityMode;
+import org.hibernate.Interceptor;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/*
+스레드별로 Hibernate 가 DB 에 한 일을 센다.
+- statements: Hibernate 가 준비한 SQL 문장 수 (StatementInspector). JDBC 배치는 한 번 전송되므로 한 번으로 센다.
+- entityWrites: 저장/변경/삭제된 엔티티 수 (Interceptor)
+- flushes: 영속성 컨텍스트 flush 횟수
+- transactions: 끝난(커밋/롤백) 물리 트랜잭션 수
+DB 왕복 횟수는 statements + transactions 로 본다. (커밋/롤백도 한 번의 왕복이다)
+- tx.metrics.enabled=false 면 Hibernate 에 아무것도 등록하지 않는다. (current() 는 항상 0)
+- 이미 설정된 StatementInspector / Interceptor 가 있으면 덮어쓰지 않고, 센 다음 그쪽으로 넘긴다.
+ */
+@Component
+public class SessionWorkCounter implements HibernatePropertiesCustomizer, StatementInspector {
+
+    private static final int STATEMENTS = 0;
+    private static final int ENTITY_WRITES = 1;
+    private static final int FLUSHES = 2;
+    private static final int TRANSACTIONS = 3;
+
+    private final ThreadLocal<long[]> counters = ThreadLocal.withInitial(() -> new long[4]);
+    private final boolean enabled;
+    private StatementInspector inspector = sql -> sql;
+
+    public SessionWorkCounter(@Value("${tx.metrics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // 현재 스레드의 누적값. 전후 값의 차이(Work.minus)로 구간의 작업량을 구한다.
+    public Work current() {
+        long[] c = counters.get();
+        return new Work(c[STATEMENTS], c[ENTITY_WRITES], c[FLUSHES], c[TRANSACTIONS]);
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (!enabled) {
+            return;
+        }
+        Object existingInspector = hibernateProperties.get(AvailableSettings.STATEMENT_INSPECTOR);
+        if (existingInspector != null) {
+            inspector = instantiate(existingInspector, StatementInspector.class);
+        }
+        Object existingInterceptor = hibernateProperties.get(AvailableSettings.INTERCEPTOR);
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        hibernateProperties.put(AvailableSettings.INTERCEPTOR, new Counter(existingInterceptor == null
+                ? EmptyInterceptor.INSTANCE : instantiate(existingInterceptor, Interceptor.class)));
+    }
+
+    @Override
+    public String inspect(String sql) {
+        counters.get()[STATEMENTS]++;
+        return inspector.inspect(sql);
+    }
+
+    // Hibernate 설정값은 인스턴스, 클래스, 클래스 이름 중 하나다.
+    private static <T> T instantiate(Object setting, Class<T> type) {
+        if (type.isInstance(setting)) {
+            return type.cast(setting);
+        }
+        Class<?> settingClass = setting instanceof Class
+                ? (Class<?>) setting
+                : ClassUtils.resolveClassName(setting.toString(), SessionWorkCounter.class.getClassLoader());
+        return type.cast(BeanUtils.instantiateClass(settingClass));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Work {
+
+        private final long statements;
+        private final long entityWrites;
+        private final long flushes;
+        private final long transactions;
+
+        public long getRoundTrips() {
+            return statements + transactions;
+        }
+
+        public Work minus(Work before) {
+            return new Work(statements - before.statements, entityWrites - before.entityWrites,
+                    flushes - before.flushes, transactions - before.transactions);
+        }
+
+        @Override
+        public String toString() {
+            return "roundTrips=" + getRoundTrips() + " statements=" + statements + " entityWrites=" + entityWrites
+                    + " flushes=" + flushes + " transactions=" + transactions;
+        }
+    }
+
+    // persist 된 엔티티는 flush 전에 롤백되어도 센다. 세고 나서 원래 Interceptor 에 넘긴다.
+    @RequiredArgsConstructor
+    private class Counter implements Interceptor {
+
+        private final Interceptor delegate;
+
+        @Override
+        public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+            counters.get()[ENTITY_WRITES]++;
+            return delegate.onSave(entity, id, state, propertyNames, types);
+        }
+
+        @Override
+        public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+                                    String[] propertyNames, Type[] types) {
+            counters.get()[ENTITY_WRITES]++;
+            return delegate.onFlushDirty(entity, id, currentState, previousState, propertyNames, types);
+        }
+
+        @Override
+        public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+            counters.get()[ENTITY_WRITES]++;
+            delegate.onDelete(entity, id, state, propertyNames, types);
+        }
+
+        @Override
+        public void preFlush(Iterator entities) {
+            counters.get()[FLUSHES]++;
+            delegate.preFlush(entities);
+        }
+
+        @Override
+        public void afterTransactionCompletion(Transaction tx) {
+            counters.get()[TRANSACTIONS]++;
+            delegate.afterTransactionCompletion(tx);
+        }
+
+        @Override
+        public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+            return delegate.onLoad(entity, id, state, propertyNames, types);
+        }
+
+        @Override
+        public void onCollectionRecreate(Object collection, Serializable key) {
+            delegate.onCollectionRecreate(collection, key);
+        }
+
+        @Override
+        public void onCollectionRemove(Object collection, Serializable key) {
+            delegate.onCollectionRemove(collection, key);
+        }
+
+        @Override
+        public void onCollectionUpdate(Object collection, Serializable key) {
+            delegate.onCollectionUpdate(collection, key);
+        }
+
+        @Override
+        public void postFlush(Iterator entities) {
+            delegate.postFlush(entities);
+        }
+
+        @Override
+        public Boolean isTransient(Object entity) {
+            return delegate.isTransient(entity);
+        }
+
+        @Override
+        public int[] findDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+                               String[] propertyNames, Type[] types) {
+            return delegate.findDirty(entity, id, currentState, previousState, propertyNames, types);
+        }
+
+        @Override
+        public Object instantiate(String entityName, EntityMode entityMode, Serializable id) {
+            return delegate.instantiate(entityName, entityMode, id);
+        }
+
+        @Override
+        public String getEntityName(Object object) {
+            return delegate.getEntityName(object);
+        }
+
+        @Override
+        public Object getEntity(String entityName, Serializable id) {
+            return delegate.getEntity(entityName, id);
+        }
+
+        @Override
+        public void afterTransactionBegin(Transaction tx) {
+            delegate.afterTransactionBegin(tx);
+        }
+
+        @Override
+        public void beforeTransactionCompletion(Transaction tx) {
+            delegate.beforeTransactionCompletion(tx);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public String onPrepareStatement(String sql) {
+            return delegate.onPrepareStatement(sql);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package hello.springtx.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+시작 시간 리포트 (ApplicationReadyEvent)
+BufferingApplicationStartup 으로 실행했을 때만(SpringtxApplication.main) 남긴다. 테스트, 벤치마크 컨텍스트에서는 아무것도 하지 않는다.
+- JVM 시작부터 첫 트랜잭션이 끝날 때까지 걸린 시간 (준비 완료 직후 빈 트랜잭션 하나를 실행해서 잰다)
+- 오래 걸린 시작 단계 상위 startup.report.top 개
+  예) spring.beans.instantiate beanName=entityManagerFactory
+ */
+@Slf4j
+@Component
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final PlatformTransactionManager transactionManager;
+    private final int top;
+
+    public StartupReport(PlatformTransactionManager transactionManager, @Value("${startup.report.top:10}") int top) {
+        this.transactionManager = transactionManager;
+        this.top = top;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (!(startup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        long ready = ManagementFactory.getRuntimeMXBean().getUptime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> { });
+        long firstTransaction = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("시작 시간 ready = {}ms, 첫 트랜잭션 = {}ms (JVM 시작 기준)", ready, firstTransaction);
+        log.info("오래 걸린 시작 단계\n{}", slowest(((BufferingApplicationStartup) startup).getBufferedTimeline().getEvents()));
+    }
+
+    private String slowest(List<TimelineEvent> events) {
+        return events.stream()
+                .sorted(Comparator.comparing(TimelineEvent::getDuration).reversed())
+                .limit(top)
+                .map(StartupReport::format)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String format(TimelineEvent event) {
+        Duration duration = event.getDuration();
+        StringBuilder sb = new StringBuilder(String.format("%6dms %s", duration.toMillis(), event.getStartupStep().getName()));
+        event.getStartupStep().getTags().forEach(tag -> sb.append(' ').append(tag.getKey()).append('=').append(tag.getValue()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package hello.springtx.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// 등록된 모든 PlatformTransactionManager 빈을 InstrumentedTransactionManager 로 감싼다. (tx.metrics.enabled=false 로 끌 수 있다)
+@Slf4j
+@Component
+public class TransactionInstrumentation implements BeanPostProcessor {
+
+    private final boolean enabled;
+    private final TransactionMetrics metrics;
+    private final RollbackCostProfiler rollbackCostProfiler;
+    private final boolean failFastRollbackOnly;
+
+    public TransactionInstrumentation(@Value("${tx.metrics.enabled:true}") boolean enabled, TransactionMetrics metrics,
+                                      RollbackCostProfiler rollbackCostProfiler,
+                                      @Value("${tx.fail-fast-rollback-only:false}") boolean failFastRollbackOnly) {
+        this.enabled = enabled;
+        this.metrics = metrics;
+        this.rollbackCostProfiler = rollbackCostProfiler;
+        this.failFastRollbackOnly = failFastRollbackOnly;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof PlatformTransactionManager && !(bean instanceof InstrumentedTransactionManager)) {
+            log.info("트랜잭션 지표 수집 적용 transactionManager = {}", beanName);
+            return new InstrumentedTransactionManager((PlatformTransactionManager) bean, metrics, rollbackCostProfiler,
+                    failFastRollbackOnly);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,37 @@
+package hello.springtx.monitor;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/*
+트랜잭션 지표 조회 API
+- 이름은 TransactionDefinition.getName() 이다. @Transactional 메서드는 "클래스명.메서드명" 으로 들어온다.
+  예) hello.springtx.order.OrderService.order
+ */
+@Component
+public class TransactionMetrics {
+
+    static final String UNNAMED = "(unnamed)";
+
+    private final Map<String, MethodTransactionMetrics> metrics = new ConcurrentHashMap<>();
+
+    public Optional<MethodTransactionMetrics> find(String name) {
+        return Optional.ofNullable(metrics.get(name));
+    }
+
+    // 이름 순으로 정렬한 읽기 전용 사본
+    public Map<String, MethodTransactionMetrics> getAll() {
+        return new TreeMap<>(metrics);
+    }
+
+    public void reset() {
+        metrics.clear();
+    }
+
+    MethodTransactionMetrics of(String name) {
+        return metrics.computeIfAbsent(name == null ? UNNAMED : name, MethodTransactionMetrics::new);
+    }
+}
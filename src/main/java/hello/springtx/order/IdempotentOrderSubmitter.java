@@ -0,0 +1,94 @@
+package hello.springtx.order;
+
+import hello.springtx.concurrent.BoundedTtlCache;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/*
+멱등 주문 접수
+클라이언트가 타임아웃 후 같은 주문을 다시 보내도 주문은 하나만 생긴다. 요청은 idempotencyKey 로 구분한다.
+1. 최근에 끝난 키는 메모리 캐시(크기, TTL 제한)에서 바로 결과를 돌려준다. DB 에 가지 않는다.
+2. 같은 키가 처리 중이면 새로 처리하지 않고, 처리 중인 요청의 결과(future)를 같이 기다린다.
+3. 캐시에서 밀려났거나 다른 서버가 처리한 키는 Orders.idempotencyKey 유니크 인덱스가 막는다.
+   저장이 유니크 제약으로 실패하면 이미 저장된 주문을 읽어서 돌려준다.
+- 잔고 부족(체크 예외)은 '대기' 주문이 커밋되므로 끝난 요청으로 캐시한다.
+- 시스템 예외는 주문이 저장되지 않으므로 캐시하지 않는다. 같은 키로 다시 시도할 수 있다.
+ */
+@Slf4j
+@Lazy
+@Component
+public class IdempotentOrderSubmitter {
+
+    private final OrderService orderService;
+    private final OrderRepository repository;
+    private final BoundedTtlCache<String, OrderResult> completed;
+    private final ConcurrentMap<String, CompletableFuture<OrderResult>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotentOrderSubmitter(OrderService orderService, OrderRepository repository,
+                                    @Value("${order.idempotency.cache-size:10000}") int cacheSize,
+                                    @Value("${order.idempotency.ttl:10m}") Duration ttl) {
+        this.orderService = orderService;
+        this.repository = repository;
+        this.completed = new BoundedTtlCache<>(cacheSize, ttl);
+    }
+
+    public OrderResult submit(String idempotencyKey, Order order) {
+        OrderResult cached = completed.get(idempotencyKey);
+        if (cached != null) {
+            log.info("이미 처리된 주문 요청 idempotencyKey = {}", idempotencyKey);
+            return cached;
+        }
+
+        CompletableFuture<OrderResult> future = new CompletableFuture<>();
+        CompletableFuture<OrderResult> running = inFlight.putIfAbsent(idempotencyKey, future);
+        if (running != null) {
+            log.info("처리 중인 주문 요청의 결과를 기다립니다. idempotencyKey = {}", idempotencyKey);
+            return await(running);
+        }
+
+        try {
+            OrderResult result = order(idempotencyKey, order);
+            completed.put(idempotencyKey, result);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, future);
+        }
+    }
+
+    private OrderResult order(String idempotencyKey, Order order) {
+        order.setIdempotencyKey(idempotencyKey);
+        try {
+            orderService.order(order);
+            return OrderResult.completed(order);
+        } catch (NotEnoughMoneyException e) {
+            return OrderResult.pending(order, e);
+        } catch (DataIntegrityViolationException e) {
+            Order existing = repository.findByIdempotencyKey(idempotencyKey).orElseThrow(() -> e);
+            log.info("이미 저장된 주문 요청 idempotencyKey = {}, orderId = {}", idempotencyKey, existing.getId());
+            return OrderResult.of(existing);
+        }
+    }
+
+    private static OrderResult await(CompletableFuture<OrderResult> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
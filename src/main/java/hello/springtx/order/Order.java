@@ -1,23 +1,40 @@
 package hello.springtx.order;
 
+import java.time.LocalDateTime;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
 @Setter
 @Getter
 @Entity
-@Table(name = "Orders")
+@Table(name = "Orders", indexes = {
+        @Index(name = "ix_orders_pay_retry", columnList = "payStatus, nextPayAttemptAt"),
+        @Index(name = "ux_orders_idempotency_key", columnList = "idempotencyKey", unique = true)
+})
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq_generator")
+    @SequenceGenerator(name = "orders_seq_generator", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
+    private String idempotencyKey; // 클라이언트가 보낸 주문 요청 키. 같은 키로 다시 요청해도 주문은 하나만 생긴다.
+
     private String username; // 정상, 예외, 잔고 부족
-    private String payStatus; // 대기, 완료
+    private PayStatus payStatus; // 대기, 완료, 실패 (TINYINT 코드로 저장)
+
+    private int payAttempts; // 재시도한 결제 횟수
+    private LocalDateTime nextPayAttemptAt; // 대기 상태일 때 다음 결제 재시도 시각
 
 }
@@ -1,9 +1,49 @@
 package hello.springtx.order;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
 
+    /*
+    재시도할 때가 된 결제 대기 주문을 (payStatus, nextPayAttemptAt) 인덱스로 찾아 잠그면서 가져온다.
+    - payStatus 는 TINYINT 코드라서 인덱스 키가 작고, 같은 페이지에 더 많은 키가 들어간다.
+    - id 를 partitions 로 나눈 나머지로 파티션을 나눠서, 파티션마다 따로 처리할 수 있다.
+    - SKIP LOCKED 라서 다른 노드가 처리 중인 주문은 건너뛴다.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select o from Order o where o.payStatus = :payStatus and o.nextPayAttemptAt <= :now"
+            + " and mod(o.id, :partitions) = :partition order by o.nextPayAttemptAt")
+    List<Order> claimPayRetries(@Param("payStatus") PayStatus payStatus, @Param("now") LocalDateTime now,
+                                @Param("partitions") long partitions, @Param("partition") long partition,
+                                Pageable pageable);
+
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    // 비관적 락: SELECT ... FOR UPDATE 로 읽는다. 트랜잭션이 끝날 때까지 다른 트랜잭션은 이 행을 기다린다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :id")
+    Optional<Order> findForUpdate(@Param("id") Long id);
+
+    // 조건부 UPDATE: 현재 상태가 expected 일 때만 바꾼다. 읽지 않고 한 문장으로 끝나며, 바뀐 행 수(0 또는 1)를 반환한다.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.payStatus = :payStatus, o.version = o.version + 1"
+            + " where o.id = :id and o.payStatus = :expected")
+    int updatePayStatusIf(@Param("id") Long id, @Param("expected") PayStatus expected,
+                          @Param("payStatus") PayStatus payStatus);
 }
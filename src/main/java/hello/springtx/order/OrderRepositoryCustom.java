@@ -0,0 +1,10 @@
+package hello.springtx.order;
+
+import hello.springtx.export.ExportFormat;
+import java.io.OutputStream;
+
+public interface OrderRepositoryCustom {
+
+    // 주문 전체를 한 행씩 내보내고, 내보낸 행 수를 반환한다.
+    long export(OutputStream out, ExportFormat format);
+}
@@ -0,0 +1,26 @@
+package hello.springtx.order;
+
+import hello.springtx.export.ExportFormat;
+import hello.springtx.export.ExportWriter;
+import hello.springtx.export.ScrollingExport;
+import java.io.OutputStream;
+import javax.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    private final EntityManager em;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, ExportFormat format) {
+        ExportWriter writer = new ExportWriter(out, format, "id", "username", "payStatus");
+        return ScrollingExport.export(em, "select o.id, o.username, o.payStatus from Order o order by o.id", fetchSize, writer);
+    }
+}
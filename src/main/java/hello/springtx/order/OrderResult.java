@@ -0,0 +1,44 @@
+package hello.springtx.order;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderResult {
+
+    public enum Outcome {
+        COMPLETED, // 결제 완료, 저장됨
+        PENDING, // 잔고 부족, '대기'로 저장됨
+        FAILED // 시스템 예외, 저장되지 않음
+    }
+
+    private final Order order;
+    private final Outcome outcome;
+    private final Exception cause;
+
+    public static OrderResult completed(Order order) {
+        return new OrderResult(order, Outcome.COMPLETED, null);
+    }
+
+    public static OrderResult pending(Order order, NotEnoughMoneyException cause) {
+        return new OrderResult(order, Outcome.PENDING, cause);
+    }
+
+    public static OrderResult failed(Order order, RuntimeException cause) {
+        return new OrderResult(order, Outcome.FAILED, cause);
+    }
+
+    // 이미 저장된 주문의 현재 결제 상태로 결과를 만든다. (원래 예외는 알 수 없으므로 cause 는 없다)
+    public static OrderResult of(Order order) {
+        switch (order.getPayStatus()) {
+            case COMPLETED:
+                return new OrderResult(order, Outcome.COMPLETED, null);
+            case PENDING:
+                return new OrderResult(order, Outcome.PENDING, null);
+            default:
+                return new OrderResult(order, Outcome.FAILED, null);
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package hello.springtx.order;
 
+import hello.springtx.concurrent.OptimisticLockRetryTemplate;
+import hello.springtx.outbox.OutboxEvent;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Slf4j
 @Service
@@ -11,6 +21,20 @@ import org.springframework.transaction.annotation.Transactional;
 public class OrderService {
 
     private final OrderRepository repository;
+    private final EntityManager em;
+    private final TransactionTemplate txTemplate;
+    private final OptimisticLockRetryTemplate optimisticLockRetryTemplate;
+
+    @Value("${order.batch.chunk-size:100}")
+    private int chunkSize;
+
+    // 0 이하면 orderAll 의 청크 루프가 끝나지 않으므로 시작할 때 막는다
+    @PostConstruct
+    void checkChunkSize() {
+        if (chunkSize <= 0) {
+            throw new IllegalStateException("order.batch.chunk-size 는 1 이상이어야 합니다. chunkSize = " + chunkSize);
+        }
+    }
 
     @Transactional
     public void order(Order order) throws NotEnoughMoneyException {
@@ -18,22 +42,113 @@ public class OrderService {
         repository.save(order);
 
         log.info("결제 진입");
+        try {
+            pay(order);
+        } catch (NotEnoughMoneyException e) {
+            em.persist(payStatusChanged(order)); // 비즈니스 예외는 커밋되므로 '대기' 이벤트도 같이 커밋된다
+            throw e;
+        }
+        em.persist(payStatusChanged(order));
 
-        // 여러 상황을 위해서 사용자 이름에 따라 다른 상황이 벌어진다고 가정
-        if (order.getUsername().equals("예외")) {
-            log.info("시스템 예외 발생");
-            throw new RuntimeException("시스템 예외");
+        log.info( "결제 프로세스 완료");
+    }
+
+    /*
+    결제 상태 변경 - 낙관적 락
+    같은 주문의 결제 상태를 동시에 바꾸면, 먼저 커밋한 쪽이 이기고 나중 쪽은 @Version 충돌로 실패한다.
+    실패한 쪽은 주문을 다시 읽어서 재시도하므로, 변경이 조용히 덮어써지지 않는다.
+     */
+    public Order updatePayStatus(Long orderId, PayStatus payStatus) {
+        return optimisticLockRetryTemplate.execute(status -> {
+            Order order = repository.findById(orderId).orElseThrow();
+            order.setPayStatus(payStatus);
+            em.persist(payStatusChanged(order));
+            return order;
+        });
+    }
+
+    // 결제 상태 변경 - 조건부 UPDATE. 현재 상태가 expected 일 때만 바꾸고, 바꿨는지 여부를 반환한다.
+    @Transactional
+    public boolean updatePayStatusIf(Long orderId, PayStatus expected, PayStatus payStatus) {
+        if (repository.updatePayStatusIf(orderId, expected, payStatus) == 0) {
+            return false;
+        }
+        em.persist(new OutboxEvent("Order", orderId, "PayStatusChanged", payStatus.name()));
+        return true;
+    }
+
+    /*
+    대량 주문: 주문 하나마다 트랜잭션을 여는 대신 chunkSize 단위로 트랜잭션을 묶는다.
+    - 청크 안의 INSERT는 hibernate.jdbc.batch_size 설정에 따라 JDBC 배치로 전송된다.
+    - 청크가 끝날 때마다 flush + clear 해서 영속성 컨텍스트가 주문 수만큼 커지지 않게 한다.
+    - 주문마다 결과를 따로 남긴다. 잔고 부족(체크 예외)은 '대기'로 저장되고, 시스템 예외는 그 주문만 저장하지 않는다.
+     */
+    public List<OrderResult> orderAll(Collection<Order> orders) {
+        List<Order> source = new ArrayList<>(orders);
+        List<OrderResult> results = new ArrayList<>(source.size());
+
+        for (int from = 0; from < source.size(); from += chunkSize) {
+            List<Order> chunk = source.subList(from, Math.min(from + chunkSize, source.size()));
+            try {
+                results.addAll(txTemplate.execute(status -> orderChunk(chunk)));
+            } catch (RuntimeException e) {
+                // flush 시점에 실패하면 청크 전체가 롤백되므로, 청크의 모든 주문을 실패로 기록한다.
+                log.info("청크 저장 실패 - 청크 롤백", e);
+                for (Order order : chunk) {
+                    results.add(OrderResult.failed(order, e));
+                }
+            }
         }
-        else if (order.getUsername().equals("잔고 부족")) {
-            log.info("비즈니스 예외 발생 - 비즈니스");
-            order.setPayStatus("대기");
-            throw new NotEnoughMoneyException("잔고가 부족합니다.");
+        return results;
+    }
+
+    private List<OrderResult> orderChunk(List<Order> chunk) {
+        List<OrderResult> results = new ArrayList<>(chunk.size());
+        for (Order order : chunk) {
+            results.add(orderInChunk(order));
         }
-        else {
-            log.info("정상 승인");
-            order.setPayStatus("완료");
+        em.flush();
+        em.clear();
+        return results;
+    }
+
+    // 결제 상태를 먼저 결정한 뒤 persist 해서, 주문 하나당 INSERT 한 번(UPDATE 없이)으로 끝낸다.
+    private OrderResult orderInChunk(Order order) {
+        try {
+            pay(order);
+            em.persist(order);
+            em.persist(payStatusChanged(order));
+            return OrderResult.completed(order);
+        } catch (NotEnoughMoneyException e) {
+            em.persist(order);
+            em.persist(payStatusChanged(order));
+            return OrderResult.pending(order, e);
+        } catch (RuntimeException e) {
+            return OrderResult.failed(order, e);
         }
+    }
 
-        log.info( "결제 프로세스 완료");
+    // 주문과 같은 트랜잭션에 저장되는 아웃박스 이벤트. 발행은 OutboxRelay 가 따로 한다.
+    OutboxEvent payStatusChanged(Order order) {
+        return new OutboxEvent("Order", order.getId(), "PayStatusChanged", order.getPayStatus().name());
+    }
+
+    // 잔고 부족으로 '대기'가 된 주문은 PendingOrderRetrier 가 나중에 다시 결제를 시도한다.
+    void pay(Order order) throws NotEnoughMoneyException {
+        // 여러 상황을 위해서 사용자 이름에 따라 다른 상황이 벌어진다고 가정
+        // (문자열 switch 는 hashCode 로 먼저 분기하므로 equals 를 차례로 부르는 if-else 보다 비교가 적다)
+        switch (order.getUsername()) {
+            case "예외":
+                log.info("시스템 예외 발생");
+                throw new RuntimeException("시스템 예외");
+            case "잔고 부족":
+                log.info("비즈니스 예외 발생 - 비즈니스");
+                order.setPayStatus(PayStatus.PENDING);
+                order.setNextPayAttemptAt(LocalDateTime.now());
+                throw new NotEnoughMoneyException("잔고가 부족합니다.");
+            default:
+                log.info("정상 승인");
+                order.setPayStatus(PayStatus.COMPLETED);
+        }
     }
 }
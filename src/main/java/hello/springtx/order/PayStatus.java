@@ -0,0 +1,36 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/*
+결제 상태
+- DB 에는 한글 문자열 대신 code(1바이트)로 저장한다. (PayStatusConverter)
+- ordinal 은 상수 순서가 바뀌면 기존 데이터의 의미가 바뀌므로, 저장용 코드는 따로 고정해서 둔다.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum PayStatus {
+
+    PENDING((byte) 0, "대기"),
+    COMPLETED((byte) 1, "완료"),
+    FAILED((byte) 2, "실패");
+
+    private static final PayStatus[] BY_CODE = new PayStatus[values().length];
+
+    static {
+        for (PayStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final byte code;
+    private final String label;
+
+    public static PayStatus of(byte code) {
+        if (code < 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("알 수 없는 결제 상태 코드 = " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,19 @@
+package hello.springtx.order;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+// PayStatus <-> TINYINT. 문자열 컬럼("대기", "완료" ...) 대비 행 크기가 줄고, 인덱스 비교도 숫자 비교가 된다.
+@Converter(autoApply = true)
+public class PayStatusConverter implements AttributeConverter<PayStatus, Byte> {
+
+    @Override
+    public Byte convertToDatabaseColumn(PayStatus attribute) {
+        return attribute == null ? null : attribute.getCode();
+    }
+
+    @Override
+    public PayStatus convertToEntityAttribute(Byte dbData) {
+        return dbData == null ? null : PayStatus.of(dbData);
+    }
+}
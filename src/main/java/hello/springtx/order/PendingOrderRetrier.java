@@ -0,0 +1,92 @@
+package hello.springtx.order;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import javax.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+잔고 부족으로 '대기'가 된 주문의 결제를 다시 시도한다. (요청 경로 밖에서 실행)
+- 파티션별로 재시도할 때가 된 주문을 batchSize 만큼 잠가서 가져오고, 한 트랜잭션에서 처리한다.
+- 또 실패하면 initialBackoff * 2^(시도 횟수 - 1) 뒤에 다시 시도한다. (maxBackoff 까지)
+- maxAttempts 번 실패하면 '실패'로 끝낸다.
+- 상태가 바뀌면 아웃박스 이벤트를 같이 저장한다.
+ */
+@Slf4j
+@Lazy
+@Component
+@RequiredArgsConstructor
+public class PendingOrderRetrier {
+
+    private final OrderRepository repository;
+    private final OrderService orderService;
+    private final EntityManager em;
+    private final TransactionTemplate txTemplate;
+    private final PendingOrderRetryProperties properties;
+
+    // 모든 파티션을 한 번씩 처리하고, 처리한 주문 수를 반환한다.
+    public int retryAll() {
+        int retried = 0;
+        for (int partition = 0; partition < properties.getPartitions(); partition++) {
+            retried += retryPartition(partition);
+        }
+        return retried;
+    }
+
+    // 한 파티션에서 재시도할 때가 된 주문이 없어질 때까지 배치 단위로 처리한다.
+    public int retryPartition(int partition) {
+        int retried = 0;
+        int claimed;
+        do {
+            claimed = retryBatch(partition);
+            retried += claimed;
+        } while (claimed == properties.getBatchSize());
+        return retried;
+    }
+
+    private int retryBatch(int partition) {
+        Integer claimed = txTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Order> orders = repository.claimPayRetries(PayStatus.PENDING, now, properties.getPartitions(), partition,
+                    PageRequest.of(0, properties.getBatchSize()));
+            for (Order order : orders) {
+                retry(order, now);
+            }
+            return orders.size();
+        });
+        return claimed == null ? 0 : claimed;
+    }
+
+    private void retry(Order order, LocalDateTime now) {
+        order.setPayAttempts(order.getPayAttempts() + 1);
+        try {
+            orderService.pay(order);
+            log.info("결제 재시도 성공 orderId = {}, attempts = {}", order.getId(), order.getPayAttempts());
+            order.setNextPayAttemptAt(null);
+            em.persist(orderService.payStatusChanged(order));
+            return;
+        } catch (NotEnoughMoneyException | RuntimeException e) {
+            log.info("결제 재시도 실패 orderId = {}, attempts = {}, cause = {}", order.getId(), order.getPayAttempts(), e.getMessage());
+        }
+
+        if (order.getPayAttempts() >= properties.getMaxAttempts()) {
+            order.setPayStatus(PayStatus.FAILED);
+            order.setNextPayAttemptAt(null);
+            em.persist(orderService.payStatusChanged(order));
+        } else {
+            order.setPayStatus(PayStatus.PENDING);
+            order.setNextPayAttemptAt(now.plus(backoff(order.getPayAttempts())));
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : backoff;
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springtx.order;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "order.retry")
+public class PendingOrderRetryProperties {
+
+    private boolean enabled = false;
+    private long interval = 5000; // 스케줄러 실행 간격(ms)
+    private int partitions = 4; // 파티션 수 = 동시에 처리하는 스레드 수
+    private int batchSize = 100; // 한 트랜잭션에서 처리하는 주문 수
+    private int maxAttempts = 5; // 이 횟수만큼 실패하면 '실패'로 끝낸다
+    private Duration initialBackoff = Duration.ofSeconds(10);
+    private Duration maxBackoff = Duration.ofHours(1);
+}
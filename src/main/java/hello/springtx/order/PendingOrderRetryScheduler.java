@@ -0,0 +1,60 @@
+package hello.springtx.order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// order.retry.enabled=true 면 order.retry.interval 마다 파티션별로 동시에 결제 재시도를 돌린다.
+@Slf4j
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "order.retry.enabled", havingValue = "true")
+public class PendingOrderRetryScheduler {
+
+    private final PendingOrderRetrier retrier;
+    private final int partitions;
+    private final ExecutorService executor;
+
+    public PendingOrderRetryScheduler(PendingOrderRetrier retrier, PendingOrderRetryProperties properties) {
+        this.retrier = retrier;
+        this.partitions = properties.getPartitions();
+        this.executor = Executors.newFixedThreadPool(partitions);
+    }
+
+    @Scheduled(fixedDelayString = "${order.retry.interval:5000}")
+    public void retry() {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            int p = partition;
+            futures.add(executor.submit(() -> retrier.retryPartition(p)));
+        }
+
+        int retried = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                retried += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("결제 재시도 실패", e);
+            }
+        }
+        if (retried > 0) {
+            log.info("결제 재시도 count = {}", retried);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
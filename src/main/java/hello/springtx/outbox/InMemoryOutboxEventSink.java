@@ -0,0 +1,26 @@
+package hello.springtx.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+// 메시지 브로커 대신 메모리에 쌓아두는 sink (테스트/로컬용)
+@Slf4j
+@Lazy
+@Component
+public class InMemoryOutboxEventSink implements OutboxEventSink {
+
+    private final List<OutboxEvent> events = new ArrayList<>();
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        log.info("이벤트 발행 size = {}", events.size());
+        this.events.addAll(events);
+    }
+
+    public synchronized List<OutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+}
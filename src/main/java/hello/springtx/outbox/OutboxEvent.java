@@ -0,0 +1,42 @@
+package hello.springtx.outbox;
+
+import java.time.LocalDateTime;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+// 도메인 변경과 같은 트랜잭션에 저장되고, OutboxRelay 가 나중에 외부로 발행하는 이벤트
+@Entity
+@Getter @Setter
+@Table(indexes = @Index(name = "ix_outbox_event_published_at", columnList = "publishedAt, id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq_generator")
+    @SequenceGenerator(name = "outbox_event_seq_generator", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+
+    private String aggregateType; // Order
+    private Long aggregateId;
+    private String eventType; // PayStatusChanged
+    private String payload;
+    private LocalDateTime createdAt;
+    private LocalDateTime publishedAt; // null 이면 아직 발행 전
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
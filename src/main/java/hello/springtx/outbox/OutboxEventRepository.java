@@ -0,0 +1,25 @@
+package hello.springtx.outbox;
+
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /*
+    발행 전 이벤트를 id 순서로 잠그면서 가져온다.
+    lock.timeout = -2 는 Hibernate 의 SKIP LOCKED 다. 다른 노드가 잠근 행은 건너뛰므로 여러 노드가 나눠서 가져간다.
+    (SKIP LOCKED 를 지원하지 않는 DB(H2 등)에서는 일반 FOR UPDATE 로 동작한다)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.publishedAt is null order by e.id")
+    List<OutboxEvent> claimUnpublished(Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package hello.springtx.outbox;
+
+import java.util.List;
+
+// 이벤트를 실제로 내보내는 곳 (메시지 브로커 등). 예외를 던지면 배치 전체가 다음 relay 때 다시 발행된다.
+public interface OutboxEventSink {
+
+    void publish(List<OutboxEvent> events);
+}
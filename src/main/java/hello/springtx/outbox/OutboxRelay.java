@@ -0,0 +1,57 @@
+package hello.springtx.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+아웃박스 릴레이
+- 발행 전 이벤트를 batchSize 만큼 잠가서 가져오고, sink 로 id 순서대로 발행한 뒤 발행 시각을 기록한다.
+- 잠금, 발행, 발행 표시가 한 트랜잭션이라 발행 도중 실패하면 다음 relay 때 다시 발행된다. (at-least-once)
+- 주문 트랜잭션은 이벤트를 INSERT 만 하고 끝나므로, 발행에 걸리는 시간이 주문 처리 시간에 더해지지 않는다.
+ */
+@Slf4j
+@Lazy
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxEventRepository repository;
+    private final OutboxEventSink sink;
+    private final TransactionTemplate txTemplate;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    // 한 배치를 발행하고 발행한 건수를 반환한다.
+    public int relayBatch() {
+        Integer published = txTemplate.execute(status -> {
+            List<OutboxEvent> events = repository.claimUnpublished(PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            sink.publish(events);
+            LocalDateTime now = LocalDateTime.now();
+            events.forEach(event -> event.setPublishedAt(now));
+            return events.size();
+        });
+        return published == null ? 0 : published;
+    }
+
+    // 남은 이벤트가 없을 때까지 발행한다.
+    public int relayAll() {
+        int total = 0;
+        int published;
+        do {
+            published = relayBatch();
+            total += published;
+        } while (published == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,31 @@
+package hello.springtx.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// outbox.relay.enabled=true 면 outbox.relay.interval 마다 릴레이를 돌린다.
+@Slf4j
+@Component
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true")
+public class OutboxRelayScheduler {
+
+    private final OutboxRelay relay;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:1000}")
+    public void relay() {
+        try {
+            int published = relay.relayAll();
+            if (published > 0) {
+                log.info("아웃박스 이벤트 발행 count = {}", published);
+            }
+        } catch (RuntimeException e) {
+            log.warn("아웃박스 릴레이 실패", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package hello.springtx.propagation;
+
+import hello.springtx.jdbc.JdbcTransactionManagerConfig;
+import hello.springtx.jdbc.PooledSequenceIdAllocator;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+로그 저장을 JPA 대신 JDBC 로 한다. (log.jdbc.enabled=true 일 때 JdbcTransactionManagerConfig 가 등록한다)
+- save / saveAll 은 jdbcTransactionManager 로 트랜잭션을 연다. EntityManager 생성, flush, 더티 체킹이 없다.
+- SQL 문자열이 항상 같으므로 커넥션의 파싱된 문장 캐시(H2 QUERY_CACHE_SIZE, 다른 DB 는 드라이버의 prepared statement 캐시)를 탄다.
+  saveAll 은 PreparedStatement 하나로 JDBC 배치 전송한다.
+- 조회, 내보내기, 바깥 트랜잭션 참여 저장(saveInOuterTransaction)은 LogRepository(JPA) 그대로다.
+ */
+@Slf4j
+public class JdbcLogRepository extends LogRepository {
+
+    private static final String INSERT_SQL = "insert into log (id, message) values (?, ?)";
+
+    private final JdbcOperations jdbcOperations;
+    private final PooledSequenceIdAllocator idAllocator;
+
+    public JdbcLogRepository(EntityManager em, JdbcOperations jdbcOperations, PooledSequenceIdAllocator idAllocator) {
+        super(em);
+        this.jdbcOperations = jdbcOperations;
+        this.idAllocator = idAllocator;
+    }
+
+    @Override
+    @Transactional(value = JdbcTransactionManagerConfig.JDBC, propagation = Propagation.REQUIRES_NEW)
+    public void save(Log logMessage) {
+        log.info("로그 저장 - JDBC");
+        jdbcOperations.update(INSERT_SQL, assignId(logMessage), logMessage.getMessage());
+
+        if (logMessage.getMessage().contains("예외")) {
+            log.info("로그 저장시 예외 발생");
+            throw new RuntimeException("로그 저장 예외 발생");
+        }
+    }
+
+    @Override
+    @Transactional(JdbcTransactionManagerConfig.JDBC)
+    public void saveAll(List<Log> logMessages) {
+        log.info("로그 배치 저장 - JDBC size = {}", logMessages.size());
+        List<Object[]> args = new ArrayList<>(logMessages.size());
+        for (Log logMessage : logMessages) {
+            args.add(new Object[]{assignId(logMessage), logMessage.getMessage()});
+        }
+        jdbcOperations.batchUpdate(INSERT_SQL, args);
+
+        if (logMessages.stream().anyMatch(logMessage -> logMessage.getMessage().contains("예외"))) {
+            log.info("로그 배치 저장시 예외 발생");
+            throw new RuntimeException("로그 저장 예외 발생");
+        }
+    }
+
+    private Long assignId(Log logMessage) {
+        if (logMessage.getId() == null) {
+            logMessage.setId(idAllocator.next());
+        }
+        return logMessage.getId();
+    }
+}
@@ -2,15 +2,21 @@ package hello.springtx.propagation;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import lombok.Data;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "ix_log_message", columnList = "message"))
 public class Log {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "log_seq_generator")
+    @SequenceGenerator(name = "log_seq_generator", sequenceName = "log_seq", allocationSize = 50)
     private Long id;
     private String message;
 
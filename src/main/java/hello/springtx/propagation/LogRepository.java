@@ -1,9 +1,15 @@
 package hello.springtx.propagation;
 
+import hello.springtx.export.ExportFormat;
+import hello.springtx.export.ExportWriter;
+import hello.springtx.export.ScrollingExport;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +21,9 @@ public class LogRepository {
 
     private final EntityManager em;
 
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void save(Log logMessage) {
         log.info("로그 저장");
@@ -26,9 +35,67 @@ public class LogRepository {
         }
     }
 
+    /*
+    바깥 트랜잭션에 참여해서 저장만 한다. (MANDATORY: 바깥 트랜잭션이 없으면 예외)
+    REQUIRES_NEW 와 달리 바깥 트랜잭션을 보류하지 않으므로, INSERT 는 바깥 트랜잭션 커밋 때 다른 엔티티와 한 번의 flush 로 나간다.
+    대신 로그 저장이 실패하면 바깥 트랜잭션도 함께 롤백된다.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saveInOuterTransaction(Log logMessage) {
+        log.info("로그 저장 - 바깥 트랜잭션 참여");
+        em.persist(logMessage);
+
+        if (logMessage.getMessage().contains("예외")) {
+            log.info("로그 저장시 예외 발생");
+            throw new RuntimeException("로그 저장 예외 발생");
+        }
+    }
+
+    /*
+    바깥 트랜잭션 안에 세이브포인트를 만들고 저장한다. (NESTED)
+    REQUIRES_NEW 처럼 로그 저장 실패가 바깥 트랜잭션을 롤백시키지 않지만, 커넥션을 하나 더 쓰거나 바깥 트랜잭션을 보류하지 않는다.
+    대신 로그는 바깥 트랜잭션이 커밋될 때 같이 커밋되고, 바깥이 롤백되면 같이 롤백된다.
+    JPA 에서는 SavepointHibernateJpaDialect 가 있어야 동작한다. (tx.jpa-savepoints.enabled=true, 기본 OFF)
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public void saveNested(Log logMessage) {
+        log.info("로그 저장 - 세이브포인트");
+        em.persist(logMessage);
+
+        if (logMessage.getMessage().contains("예외")) {
+            log.info("로그 저장시 예외 발생");
+            throw new RuntimeException("로그 저장 예외 발생");
+        }
+    }
+
+    // write-behind 모드에서 쌓인 로그를 한 트랜잭션으로 저장한다. 하나라도 실패하면 배치 전체가 롤백된다.
+    @Transactional
+    public void saveAll(List<Log> logMessages) {
+        log.info("로그 배치 저장 size = {}", logMessages.size());
+        for (Log logMessage : logMessages) {
+            em.persist(logMessage);
+        }
+
+        if (logMessages.stream().anyMatch(logMessage -> logMessage.getMessage().contains("예외"))) {
+            log.info("로그 배치 저장시 예외 발생");
+            throw new RuntimeException("로그 저장 예외 발생");
+        }
+    }
+
+    // message 인덱스로 한 건만 읽는다.
+    // 로그는 계속 INSERT 되는 테이블이라, 쿼리 캐시를 써도 INSERT 마다 무효화되므로 캐시는 쓰지 않는다.
+    @Transactional(readOnly = true)
     public Optional<Log> find(String message) {
         return em.createQuery("select l from Log l where l.message = :message", Log.class)
                 .setParameter("message", message)
-                .getResultList().stream().findAny();
+                .setMaxResults(1)
+                .getResultList().stream().findFirst();
+    }
+
+    // 로그 전체를 한 행씩 내보내고, 내보낸 행 수를 반환한다.
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, ExportFormat format) {
+        ExportWriter writer = new ExportWriter(out, format, "id", "message");
+        return ScrollingExport.export(em, "select l.id, l.message from Log l order by l.id", fetchSize, writer);
     }
 }
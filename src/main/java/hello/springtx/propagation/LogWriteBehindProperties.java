@@ -0,0 +1,26 @@
+package hello.springtx.propagation;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "log.write-behind")
+public class LogWriteBehindProperties {
+
+    public enum OverflowPolicy {
+        DROP, // 버린다
+        CALLER_RUNS, // 호출한 스레드에서 바로 저장한다 (REQUIRES_NEW, 기존 방식)
+        SPILL // 디스크 파일에 적어두고 다음 flush 때 다시 저장한다
+    }
+
+    private boolean enabled = false;
+    private int capacity = 10_000;
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(200);
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+    private String spillFile = System.getProperty("java.io.tmpdir") + "/springtx-log-spill.log";
+}
@@ -0,0 +1,254 @@
+package hello.springtx.propagation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/*
+로그 write-behind 모드 (log.write-behind.enabled=true 일 때만 동작)
+- LogRepository.save 는 REQUIRES_NEW 라서 호출하는 동안 커넥션을 두 개 잡는다.
+- 이 모드에서는 로그를 큐에 넣기만 하고 바로 반환한다. 외부 트랜잭션은 커넥션 하나로 끝난다.
+- 백그라운드 writer 가 flushInterval 마다 큐를 비우면서 batchSize 단위로 한 트랜잭션에 저장한다.
+- 큐가 가득 차면 overflowPolicy 에 따라 버리거나, 호출 스레드에서 저장하거나, 디스크에 적어둔다. (spill 은 한 건마다 fsync 한다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogWriteBehindQueue {
+
+    private final LogRepository logRepository;
+    private final LogWriteBehindProperties properties;
+
+    private final Queue<Log> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object spillLock = new Object();
+    private ScheduledExecutorService writer;
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushInterval().toMillis();
+        writer.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        writer.awaitTermination(properties.getFlushInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+        flushQuietly();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public void offer(Log logMessage) {
+        if (size.incrementAndGet() <= properties.getCapacity()) {
+            queue.offer(logMessage);
+            return;
+        }
+        size.decrementAndGet();
+
+        switch (properties.getOverflowPolicy()) {
+            case DROP:
+                log.warn("로그 큐가 가득 차서 버립니다. logMessage = {}", logMessage);
+                break;
+            case CALLER_RUNS:
+                logRepository.save(logMessage);
+                break;
+            case SPILL:
+                spill(logMessage);
+                break;
+        }
+    }
+
+    // 큐와 spill 파일에 쌓인 로그를 모두 저장하고, 저장한 건수를 반환한다.
+    public synchronized int flush() {
+        int written = 0;
+        List<Log> batch;
+        while (!(batch = poll()).isEmpty()) {
+            written += write(batch);
+        }
+        return written + replaySpill();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 예약 작업은 예외가 나면 더 이상 실행되지 않으므로 여기서 잡는다.
+            log.warn("로그 write-behind flush 실패", e);
+        }
+    }
+
+    private List<Log> poll() {
+        List<Log> batch = new ArrayList<>(properties.getBatchSize());
+        Log logMessage;
+        while (batch.size() < properties.getBatchSize() && (logMessage = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(logMessage);
+        }
+        return batch;
+    }
+
+    // 배치 저장이 실패하면 한 건씩 다시 저장해서, 실패한 로그만 버린다.
+    private int write(List<Log> batch) {
+        try {
+            logRepository.saveAll(batch);
+            return batch.size();
+        } catch (RuntimeException e) {
+            log.info("로그 배치 저장 실패, 한 건씩 다시 저장합니다. size = {}", batch.size());
+        }
+        return writeOneByOne(batch);
+    }
+
+    private int writeOneByOne(List<Log> batch) {
+        int written = 0;
+        for (Log logMessage : batch) {
+            logMessage.setId(null); // 롤백된 배치에서 받은 id 는 버린다
+            try {
+                logRepository.save(logMessage);
+                written++;
+            } catch (RuntimeException e) {
+                log.info("로그 저장에 실패했습니다. logMessage = {}", logMessage);
+            }
+        }
+        return written;
+    }
+
+    // 한 줄씩 쓰고 디스크에 동기화(force)한 뒤 반환한다. 반환된 로그는 프로세스가 죽어도 남는다.
+    private void spill(Log logMessage) {
+        synchronized (spillLock) {
+            try (FileChannel out = FileChannel.open(spillPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer line = ByteBuffer.wrap((escape(logMessage.getMessage()) + "\n").getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining()) {
+                    out.write(line);
+                }
+                out.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("로그 spill 파일 쓰기 실패", e);
+            }
+        }
+    }
+
+    /*
+    spill 파일을 .replay 로 옮겨서 저장하고, 모두 저장한 뒤에만 .replay 를 지운다.
+    - 저장 도중 프로세스가 죽으면 .replay 가 남고, 다음 flush 때(재시작 후 첫 flush 포함) 먼저 다시 저장한다.
+      이미 커밋된 배치가 한 번 더 저장될 수 있다. (최소 한 번 전달)
+    - 커넥션을 얻지 못하는 등 DB 장애로 배치가 실패하면, 남은 줄을 .replay 에 남긴 채 멈춘다.
+      그 밖의 실패는 한 건씩 다시 저장하고, 그래도 실패한 로그만 버린다. (큐의 로그와 같다)
+     */
+    private int replaySpill() {
+        Path replayPath = Paths.get(spillPath() + ".replay");
+        int written = 0;
+        while (true) {
+            List<String> lines;
+            synchronized (spillLock) {
+                try {
+                    if (!Files.exists(replayPath)) {
+                        if (!Files.exists(spillPath())) {
+                            return written;
+                        }
+                        Files.move(spillPath(), replayPath, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    lines = Files.readAllLines(replayPath, StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("로그 spill 파일 읽기 실패", e);
+                }
+            }
+
+            for (int from = 0; from < lines.size(); from += properties.getBatchSize()) {
+                List<String> batchLines = lines.subList(from, Math.min(from + properties.getBatchSize(), lines.size()));
+                List<Log> batch = new ArrayList<>(batchLines.size());
+                for (String line : batchLines) {
+                    batch.add(new Log(unescape(line)));
+                }
+                try {
+                    logRepository.saveAll(batch);
+                    written += batch.size();
+                } catch (CannotCreateTransactionException | DataAccessResourceFailureException | TransientDataAccessException e) {
+                    log.warn("spill 로그를 저장하지 못했습니다. 남은 {}건은 다음 flush 때 다시 저장합니다.", lines.size() - from, e);
+                    rewrite(replayPath, lines.subList(from, lines.size()));
+                    return written;
+                } catch (RuntimeException e) {
+                    log.info("로그 배치 저장 실패, 한 건씩 다시 저장합니다. size = {}", batch.size());
+                    written += writeOneByOne(batch);
+                }
+            }
+            try {
+                Files.delete(replayPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("로그 spill 파일 삭제 실패", e);
+            }
+        }
+    }
+
+    private static void rewrite(Path path, List<String> lines) {
+        try {
+            Path temp = Paths.get(path + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("로그 spill 파일 쓰기 실패", e);
+        }
+    }
+
+    private Path spillPath() {
+        return Paths.get(properties.getSpillFile());
+    }
+
+    private static String escape(String message) {
+        return message.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String unescape(String line) {
+        StringBuilder sb = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -4,6 +4,7 @@ import java.util.Optional;
 import javax.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,9 +21,11 @@ public class MemberRepository {
         em.persist(member);
     }
 
+    // username(natural id)으로 조회한다. 2차 캐시가 켜져 있으면 캐시에서 먼저 찾고, 없으면 유니크 인덱스로 한 건만 읽는다.
+    @Transactional(readOnly = true)
     public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
-                .setParameter("username", username)
-                .getResultList().stream().findAny();
+        return em.unwrap(Session.class)
+                .bySimpleNaturalId(Member.class)
+                .loadOptional(username);
     }
 }
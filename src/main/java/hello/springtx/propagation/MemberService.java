@@ -1,9 +1,20 @@
 package hello.springtx.propagation;
 
+import hello.springtx.jdbc.SavepointHibernateJpaDialect;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Slf4j
@@ -12,6 +23,52 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final LogWriteBehindQueue logWriteBehindQueue;
+    private final EntityManager em;
+    private final TransactionTemplate txTemplate;
+
+    /*
+    joinV1 의 로그를 바깥 트랜잭션에 합쳐서 저장할지 여부
+    - false: LogRepository.save(REQUIRES_NEW). 바깥 트랜잭션을 보류하고, 로그만 따로 flush + 커밋한다.
+    - true: LogRepository.saveInOuterTransaction(MANDATORY). 회원과 로그 INSERT 가 커밋 때 한 번의 flush, 한 번의 커밋으로 나간다.
+    joinV1 은 로그 저장 실패를 잡지 않으므로 어느 쪽이든 실패하면 회원 가입도 롤백된다. 그래서 결과는 같고 DB 왕복만 줄어든다.
+     */
+    @Value("${member.join.coalesce-log:false}")
+    private boolean coalesceLog;
+
+    /*
+    joinV2 의 로그 저장 방식
+    - false: LogRepository.save(REQUIRES_NEW). 로그마다 커넥션을 하나 더 쓰고, 회원 트랜잭션을 보류했다가 다시 시작한다.
+    - true: LogRepository.saveNested(NESTED). 같은 커넥션에 세이브포인트를 만든다. 로그 저장이 실패하면 세이브포인트까지만 롤백된다.
+      JPA 에서는 tx.jpa-savepoints.enabled=true 도 같이 켜야 한다. 안 켜면 시작할 때 실패한다. (checkSettings)
+     */
+    @Value("${member.join.nested-log:false}")
+    private boolean nestedLog;
+
+    // joinAll 의 동시 파티션 수. 0 이면 min(CPU 코어 수, 커넥션 풀 크기)
+    @Value("${member.join-all.parallelism:0}")
+    private int parallelism;
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+    @Value("${member.join-all.chunk-size:100}")
+    private int chunkSize;
+
+    private volatile ForkJoinPool joinAllPool;
+
+    // 설정 검사
+    // - chunkSize 가 0 이하면 joinAll 의 청크 루프가 끝나지 않는다.
+    // - 세이브포인트를 지원하지 않으면 saveNested 가 매번 NestedTransactionNotSupportedException 으로 실패하고,
+    //   joinV2 는 그 예외를 잡으므로 회원만 커밋되고 로그는 조용히 빠진다.
+    @PostConstruct
+    void checkSettings() {
+        if (chunkSize <= 0) {
+            throw new IllegalStateException("member.join-all.chunk-size 는 1 이상이어야 합니다. chunkSize = " + chunkSize);
+        }
+        if (nestedLog && !(((EntityManagerFactoryInfo) em.getEntityManagerFactory()).getJpaDialect()
+                instanceof SavepointHibernateJpaDialect)) {
+            throw new IllegalStateException("member.join.nested-log=true 는 JPA 세이브포인트가 필요합니다. tx.jpa-savepoints.enabled=true 로 켜주세요.");
+        }
+    }
 
     // 각각의 트랜잭션을 사용하는 예제
     @Transactional
@@ -23,7 +80,11 @@ public class MemberService {
         memberRepository.save(member);
         log.info("=== memberRepository 호출 종료 ===");
         log.info("=== logRepository 시작 ===");
-        logRepository.save(logMessage);
+        if (coalesceLog) {
+            logRepository.saveInOuterTransaction(logMessage);
+        } else {
+            logRepository.save(logMessage);
+        }
         log.info("=== logRepository 종료 ===");
     }
 
@@ -38,7 +99,14 @@ public class MemberService {
         log.info("=== memberRepository 호출 종료 ===");
         log.info("=== logRepository 시작 ===");
         try {
-            logRepository.save(logMessage);
+            // write-behind 모드면 큐에 넣고 바로 반환한다 (커넥션을 하나만 사용)
+            if (logWriteBehindQueue.isEnabled()) {
+                logWriteBehindQueue.offer(logMessage);
+            } else if (nestedLog) {
+                logRepository.saveNested(logMessage);
+            } else {
+                logRepository.save(logMessage);
+            }
         }
         catch (RuntimeException e) {
             log.info("로그 저장에 실패했습니다. logMesage = {}", logMessage);
@@ -46,4 +114,103 @@ public class MemberService {
         }
         log.info("=== logRepository 종료 ===");
     }
+
+    /*
+    대량 가입
+    - 사용자 이름을 파티션으로 나눠 ForkJoinPool 에서 동시에 처리한다.
+      파티션 하나는 커넥션을 한 번에 하나만 쓰므로, 동시 파티션 수는 커넥션 풀 크기를 넘지 않게 한다.
+    - 파티션 안에서는 chunkSize 명씩 한 트랜잭션으로 가입시킨다. 청크가 실패하면(예: 이미 있는 이름) 그 청크만 한 명씩 다시 시도한다.
+    - 로그는 사용자마다 REQUIRES_NEW 트랜잭션을 여는 대신, 청크마다 한 번의 배치(saveAll)로 저장한다.
+      파티션 전체를 모아서 저장하면 영속성 컨텍스트와 트랜잭션 하나가 파티션 크기만큼 커지므로 청크 단위로 끊는다.
+      배치가 실패하면 한 건씩 다시 저장하고, 그래도 실패한 로그는 버린다. (joinV2 처럼 로그 실패가 회원 가입을 실패시키지 않는다)
+    - 작업 스레드는 호출한 스레드의 트랜잭션에 참여하지 않는다. 각 청크가 자기 트랜잭션으로 커밋된다.
+    가입하지 못한 사용자 이름을 반환한다.
+     */
+    public List<String> joinAll(List<String> usernames) {
+        int partitions = Math.max(1, Math.min(joinAllPool().getParallelism(), (usernames.size() + chunkSize - 1) / chunkSize));
+        List<ForkJoinTask<List<String>>> tasks = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            List<String> partition = usernames.subList(usernames.size() * i / partitions, usernames.size() * (i + 1) / partitions);
+            tasks.add(joinAllPool().submit(() -> joinPartition(partition)));
+        }
+
+        List<String> failed = new ArrayList<>();
+        for (ForkJoinTask<List<String>> task : tasks) {
+            failed.addAll(task.join());
+        }
+        return failed;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (joinAllPool != null) {
+            joinAllPool.shutdown();
+        }
+    }
+
+    private ForkJoinPool joinAllPool() {
+        if (joinAllPool == null) {
+            synchronized (this) {
+                if (joinAllPool == null) {
+                    int threads = parallelism > 0 ? parallelism
+                            : Math.min(Runtime.getRuntime().availableProcessors(), connectionPoolSize);
+                    log.info("대량 가입 파티션 수 = {}", threads);
+                    joinAllPool = new ForkJoinPool(threads);
+                }
+            }
+        }
+        return joinAllPool;
+    }
+
+    private List<String> joinPartition(List<String> usernames) {
+        List<String> failed = new ArrayList<>();
+        for (int from = 0; from < usernames.size(); from += chunkSize) {
+            List<String> chunk = usernames.subList(from, Math.min(from + chunkSize, usernames.size()));
+            List<Log> logs = new ArrayList<>(chunk.size());
+            try {
+                txTemplate.executeWithoutResult(status -> persistMembers(chunk));
+                chunk.forEach(username -> logs.add(new Log(username)));
+            } catch (RuntimeException e) {
+                log.info("가입 청크 실패 - 한 명씩 다시 시도합니다. cause = {}", e.getMessage());
+                for (String username : chunk) {
+                    try {
+                        txTemplate.executeWithoutResult(status -> persistMembers(List.of(username)));
+                        logs.add(new Log(username));
+                    } catch (RuntimeException memberFailure) {
+                        log.info("회원 가입 실패 username = {}", username);
+                        failed.add(username);
+                    }
+                }
+            }
+            saveLogs(logs);
+        }
+        return failed;
+    }
+
+    private void persistMembers(List<String> usernames) {
+        for (String username : usernames) {
+            em.persist(new Member(username));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private void saveLogs(List<Log> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        try {
+            logRepository.saveAll(logs);
+        } catch (RuntimeException e) {
+            log.info("로그 배치 저장 실패 - 한 건씩 다시 저장합니다. size = {}", logs.size());
+            for (Log logMessage : logs) {
+                logMessage.setId(null); // 롤백된 배치에서 받은 id 는 버린다
+                try {
+                    logRepository.save(logMessage);
+                } catch (RuntimeException logFailure) {
+                    log.info("로그 저장에 실패했습니다. logMesage = {}", logMessage);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,26 @@
+-- Orders.pay_status: VARCHAR('대기', '완료', '실패') -> TINYINT(PayStatus.code)
+-- 예제는 ddl-auto 로 스키마를 매번 새로 만들지만, 기존 문자열 데이터가 있는 DB 는 이 스크립트로 옮긴다.
+-- 코드 값은 PayStatus 의 code 와 같아야 한다. (PENDING=0, COMPLETED=1, FAILED=2)
+-- H2 전용 스크립트다. (add column if not exists, drop index if exists, alter column ... rename to 는 H2 문법이다. 다른 DB 는 그 DB 의 문법으로 바꿔서 쓴다)
+-- 중간에 멈춘 뒤 다시 실행할 수 있다. (pay_status_code 컬럼이 이미 있으면 그대로 쓰고, 코드는 다시 채운다)
+
+alter table orders add column if not exists pay_status_code tinyint;
+
+update orders
+   set pay_status_code = case pay_status
+                             when '대기' then 0
+                             when '완료' then 1
+                             when '실패' then 2
+                         end
+ where pay_status is not null;
+
+-- 알 수 없는 문자열이 남아 있으면 제약 조건을 추가할 때 기존 행 검사에 실패해서 스크립트가 여기서 멈춘다.
+-- (기존 컬럼을 지우기 전에 멈추므로 원래 문자열은 남아 있다. 데이터를 확인하고 매핑을 추가한 뒤 다시 실행한다)
+alter table orders add constraint ck_orders_pay_status_mapped
+    check (pay_status is null or pay_status_code is not null);
+alter table orders drop constraint ck_orders_pay_status_mapped;
+
+drop index if exists ix_orders_pay_retry;
+alter table orders drop column pay_status;
+alter table orders alter column pay_status_code rename to pay_status;
+create index ix_orders_pay_retry on orders (pay_status, next_pay_attempt_at);
@@ -0,0 +1,80 @@
+package hello.springtx.apply;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Slf4j
+@SpringBootTest
+public class IntenalCallV3Test {
+
+    @Autowired
+    CallService service;
+
+
+    // 프록시가 아니라, CallService 를 상속한 하위 클래스가 빈으로 등록된다
+    @Test
+    void printProxy() {
+        log.info("call servcie class ={}", service.getClass());
+        assertThat(AopUtils.isAopProxy(service)).isFalse();
+        assertThat(service).isInstanceOf(CallService.class);
+    }
+
+    @Test
+    void internalCall() {
+        service.internal();
+        assertThat(service.internalTxActive).isTrue();
+    }
+
+    // V1 과 달리 this.internal() 내부 호출에도 트랜잭션이 적용된다
+    @Test
+    void externalCall() {
+        service.external();
+        assertThat(service.externalTxActive).isFalse();
+        assertThat(service.internalTxActive).isTrue();
+    }
+
+    // @Bean 메서드가 new 하는 빈은 클래스를 바꿀 수 없으므로, 클래스로 등록한다
+    @TestConfiguration
+    @Import(CallService.class)
+    static class IntenalCallV3TestConfig {
+    }
+
+    @SelfInvocationTransactional
+    static class CallService {
+
+        boolean externalTxActive;
+        boolean internalTxActive;
+
+        public void external() {
+            log.info("call external");
+            externalTxActive = printTxInfo();
+            internal();
+        }
+
+        @Transactional
+        public void internal() {
+            log.info("call internal");
+            internalTxActive = printTxInfo();
+        }
+
+        private boolean printTxInfo() {
+            boolean txActive = TransactionSynchronizationManager.isActualTransactionActive();
+            log.info("tx active={}", txActive);
+            boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            log.info("tx readOnly = {}", readOnly);
+            return txActive;
+        }
+    }
+
+
+}
@@ -1,5 +1,7 @@
 package hello.springtx.apply;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +9,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAttribute;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Slf4j
@@ -16,12 +19,25 @@ public class TxLevelTest {
     @Autowired
     LevelService levelService;
 
+    @Autowired
+    TransactionAttributeRegistry registry;
+
     @Test
     void orderTest() {
         levelService.write();
         levelService.read();
     }
 
+    @Test
+    void registry() {
+        String name = LevelService.class.getName();
+
+        // 메서드의 @Transactional 이 클래스의 readOnly = true 보다 우선한다
+        assertThat(registry.find(name + ".write")).get().extracting(TransactionAttribute::isReadOnly).isEqualTo(false);
+        assertThat(registry.find(name + ".read")).get().extracting(TransactionAttribute::isReadOnly).isEqualTo(true);
+        assertThat(registry.find("hello.springtx.order.OrderService.order")).isPresent();
+    }
+
     @TestConfiguration
     static class TxLevelTestConfig {
         @Bean
@@ -0,0 +1,124 @@
+package hello.springtx.concurrent;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// 작업 4개가 모일 때까지 기다리도록 window 를 길게 잡는다
+@Slf4j
+@SpringBootTest(properties = {
+        "tx.group-commit.enabled=true",
+        "tx.group-commit.window=5s",
+        "tx.group-commit.max-size=4"
+})
+class GroupCommitCoordinatorTest {
+
+    @Autowired
+    GroupCommitCoordinator coordinator;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    EntityManager em;
+
+    ExecutorService callers = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdown();
+    }
+
+    @Test
+    void groupCommit() {
+        long groups = coordinator.getGroups();
+        long groupedUnits = coordinator.getGroupedUnits();
+
+        List<CompletableFuture<String>> results = join("groupCommit_1", "groupCommit_2", "groupCommit_3", "groupCommit_4");
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).join()).isEqualTo("groupCommit_" + (i + 1));
+            assertTrue(memberRepository.find("groupCommit_" + (i + 1)).isPresent());
+        }
+        // 4건이 한 트랜잭션으로 커밋됐다
+        assertThat(coordinator.getGroups() - groups).isEqualTo(1);
+        assertThat(coordinator.getGroupedUnits() - groupedUnits).isEqualTo(4);
+    }
+
+    @Test
+    void groupCommit_oneFails() {
+        long retriedUnits = coordinator.getRetriedUnits();
+
+        List<CompletableFuture<String>> results = join("oneFails_1", "oneFails_2예외", "oneFails_3", "oneFails_4");
+
+        // 실패한 작업만 예외를 받고, 나머지는 한 건씩 다시 실행되어 커밋된다
+        assertThatThrownBy(() -> results.get(1).join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("가입 예외 발생");
+        assertTrue(memberRepository.find("oneFails_2예외").isEmpty());
+        for (String username : List.of("oneFails_1", "oneFails_3", "oneFails_4")) {
+            assertTrue(memberRepository.find(username).isPresent());
+        }
+        assertThat(coordinator.getRetriedUnits() - retriedUnits).isEqualTo(4);
+    }
+
+    // 기본 joinV1 은 로그를 REQUIRES_NEW 로 저장한다. 그룹 안에서는 새 트랜잭션이 막히므로 로그가 먼저 커밋되지 않고,
+    // 한 건씩 다시 실행해도 로그가 두 번 저장되지 않는다
+    @Test
+    void groupCommit_requiresNew_noDuplicateLogs() {
+        List<CompletableFuture<String>> results = join(username -> {
+            memberService.joinV1(username);
+            return username;
+        }, "requiresNew_1", "requiresNew_2예외", "requiresNew_3", "requiresNew_4");
+
+        assertThatThrownBy(() -> results.get(1).join()).isInstanceOf(CompletionException.class);
+        assertTrue(memberRepository.find("requiresNew_2예외").isEmpty());
+        for (int i : new int[]{0, 2, 3}) {
+            String username = "requiresNew_" + (i + 1);
+            assertThat(results.get(i).join()).isEqualTo(username);
+            assertThat(countLogs(username)).isEqualTo(1);
+        }
+        assertThat(countLogs("requiresNew_2예외")).isZero();
+    }
+
+    private long countLogs(String message) {
+        return em.createQuery("select count(l) from Log l where l.message = :message", Long.class)
+                .setParameter("message", message)
+                .getSingleResult();
+    }
+
+    private List<CompletableFuture<String>> join(String... usernames) {
+        return join(username -> {
+            memberRepository.save(new Member(username));
+            if (username.contains("예외")) {
+                throw new RuntimeException("가입 예외 발생");
+            }
+            return username;
+        }, usernames);
+    }
+
+    private List<CompletableFuture<String>> join(Function<String, String> unit, String... usernames) {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (String username : usernames) {
+            results.add(CompletableFuture.supplyAsync(() -> coordinator.execute(status -> unit.apply(username)), callers));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        return results;
+    }
+}
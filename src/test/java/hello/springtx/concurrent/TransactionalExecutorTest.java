@@ -0,0 +1,81 @@
+package hello.springtx.concurrent;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.SQLException;
+import java.util.concurrent.CompletionException;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 스레드 재사용을 확인하기 위해 플랫폼 스레드 하나로 실행한다
+@Slf4j
+@SpringBootTest(properties = "executor.platform-threads=1")
+class TransactionalExecutorTest {
+
+    @Autowired
+    TransactionalExecutor executor;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void joinV1() {
+        executor.submit(() -> {
+            memberService.joinV1("executor_joinV1");
+            return null;
+        }).join();
+
+        assertTrue(memberRepository.find("executor_joinV1").isPresent());
+    }
+
+    @Test
+    void order_checkedException() {
+        Order order = new Order();
+        order.setUsername("잔고 부족");
+
+        assertThatThrownBy(() -> executor.submit(() -> {
+            orderService.order(order);
+            return null;
+        }).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(NotEnoughMoneyException.class);
+    }
+
+    // 트랜잭션을 끝내지 않은 작업이 있어도 작업이 끝나면 정리되어, 다음 작업은 깨끗한 상태에서 시작한다
+    // 남은 트랜잭션은 롤백되고, 잡고 있던 커넥션은 풀로 돌아간다
+    @Test
+    void leakedTransaction_cleared() throws SQLException {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        int activeConnections = pool.getHikariPoolMXBean().getActiveConnections();
+
+        int activeInTask = executor.submit(() -> {
+            txManager.getTransaction(new DefaultTransactionAttribute());
+            return pool.getHikariPoolMXBean().getActiveConnections();
+        }).join();
+        assertThat(activeInTask).isEqualTo(activeConnections + 1);
+        assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(activeConnections);
+
+        boolean active = executor.submit(TransactionSynchronizationManager::isActualTransactionActive).join();
+        assertThat(active).isFalse();
+    }
+}
@@ -0,0 +1,57 @@
+package hello.springtx.export;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.PayStatus;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest(properties = "export.fetch-size=2")
+class ExportTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    LogRepository logRepository;
+
+    @Test
+    void exportOrders_ndjson() {
+        Order order = new Order();
+        order.setUsername("export_\"정상\"");
+        order.setPayStatus(PayStatus.COMPLETED);
+        orderRepository.save(order);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = orderRepository.export(out, ExportFormat.NDJSON);
+
+        String exported = out.toString(StandardCharsets.UTF_8);
+        log.info("exported = {}", exported);
+        assertThat(count).isEqualTo(exported.lines().count());
+        assertThat(exported).contains("{\"id\":" + order.getId() + ",\"username\":\"export_\\\"정상\\\"\",\"payStatus\":\"COMPLETED\"}");
+    }
+
+    @Test
+    void exportLogs_csv() {
+        for (int i = 0; i < 5; i++) {
+            logRepository.save(new Log("export, csv " + i));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = logRepository.export(out, ExportFormat.CSV);
+
+        String exported = out.toString(StandardCharsets.UTF_8);
+        log.info("exported = {}", exported);
+        assertThat(exported.lines().findFirst()).hasValue("id,message");
+        assertThat(exported.lines().count()).isEqualTo(count + 1); // 헤더 포함
+        assertThat(exported).contains(",\"export, csv 4\"");
+    }
+}
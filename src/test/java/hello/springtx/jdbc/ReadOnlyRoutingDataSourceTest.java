@@ -0,0 +1,58 @@
+package hello.springtx.jdbc;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// 로컬에서는 H2 메모리 DB 두 개로 primary / replica 를 흉내낸다.
+@Slf4j
+@SpringBootTest(properties = {
+        "datasource.replica.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "datasource.replica.jdbc-url=jdbc:h2:mem:replica",
+        "datasource.replica.username=sa"
+})
+class ReadOnlyRoutingDataSourceTest {
+
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Test
+    void readOnly_replica() {
+        TransactionTemplate readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+
+        String url = readOnly.execute(status -> currentUrl());
+
+        log.info("readOnly url = {}", url);
+        assertThat(url).startsWith("jdbc:h2:mem:replica");
+    }
+
+    @Test
+    void readWrite_primary() {
+        String url = new TransactionTemplate(txManager).execute(status -> currentUrl());
+
+        log.info("readWrite url = {}", url);
+        assertThat(url).startsWith("jdbc:h2:mem:primary");
+    }
+
+    private String currentUrl() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package hello.springtx.monitor;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@SpringBootTest(properties = "tx.fail-fast-rollback-only=true")
+class DoomedTransactionTest {
+
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    TransactionTemplate txTemplate;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionMetrics metrics;
+
+    // BasicTxTest.inner_rollback 과 같은 상황에서, 다음 참여자는 커밋까지 가지 않고 바로 중단된다
+    @Test
+    void inner_rollback_failFast() {
+        TransactionStatus outer = txManager.getTransaction(new DefaultTransactionAttribute());
+        TransactionStatus inner = txManager.getTransaction(new DefaultTransactionAttribute());
+        txManager.rollback(inner);
+
+        assertThatThrownBy(() -> txManager.getTransaction(new DefaultTransactionAttribute()))
+                .isInstanceOf(DoomedTransactionException.class);
+        // 새 트랜잭션은 rollbackOnly 와 상관없으므로 막지 않는다
+        TransactionStatus requiresNew = txManager.getTransaction(
+                new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        txManager.commit(requiresNew);
+
+        assertThatThrownBy(() -> txManager.commit(outer)).isInstanceOf(UnexpectedRollbackException.class);
+    }
+
+    @Test
+    void repository_failFast() {
+        long aborts = doomedAborts();
+
+        txTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            assertThatThrownBy(() -> memberRepository.save(new Member("doomed_save")))
+                    .isInstanceOf(DoomedTransactionException.class);
+        });
+
+        assertTrue(memberRepository.find("doomed_save").isEmpty());
+        assertThat(doomedAborts() - aborts).isEqualTo(1);
+    }
+
+    private long doomedAborts() {
+        return metrics.find("hello.springtx.propagation.MemberRepository.save")
+                .map(method -> method.getDoomedAborts().sum())
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,68 @@
+package hello.springtx.monitor;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@SpringBootTest
+class RollbackCostProfilerTest {
+
+    private static final String ORDER = "hello.springtx.order.OrderService.order";
+
+    @Autowired
+    RollbackCostProfiler profiler;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    // 런타임 예외 -> 롤백. 롤백 전까지 저장한 주문이 버려진 작업으로 기록된다
+    @Test
+    void orderUnchecked() {
+        Order order = new Order();
+        order.setUsername("예외");
+
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(RuntimeException.class);
+
+        RollbackCost cost = profiler.find(ORDER, RuntimeException.class).get();
+        log.info("{}", cost);
+        assertThat(cost.getRollbacks().sum()).isGreaterThanOrEqualTo(1);
+        assertThat(cost.getEntityWrites().sum()).isGreaterThanOrEqualTo(1);
+        assertThat(cost.getElapsed().snapshot().getCount()).isEqualTo(cost.getRollbacks().sum());
+        assertThat(cost.getLastMessage()).isEqualTo("시스템 예외");
+    }
+
+    // 체크 예외 -> 커밋. 버려진 작업이 없으므로 기록되지 않는다
+    @Test
+    void orderBusinessException() {
+        Order order = new Order();
+        order.setUsername("잔고 부족");
+
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        assertThat(profiler.find(ORDER, NotEnoughMoneyException.class)).isEmpty();
+    }
+
+    // 아무도 꺼내 가지 않은 예외(예: 트랜잭션 없는 SUPPORTS 경계)가 다음 롤백의 원인으로 잡히지 않는다
+    @Test
+    void staleCause_notBlamed() {
+        RollbackCause.record(new IllegalStateException("이전 경계의 예외"));
+
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+        txTemplate.setName("staleCause_notBlamed");
+        txTemplate.executeWithoutResult(TransactionExecution::setRollbackOnly);
+
+        assertThat(profiler.find("staleCause_notBlamed", IllegalStateException.class)).isEmpty();
+        assertThat(profiler.getAll()).containsKey("staleCause_notBlamed | " + RollbackCostProfiler.UNKNOWN);
+    }
+}
@@ -0,0 +1,65 @@
+package hello.springtx.monitor;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest
+class TransactionMetricsTest {
+
+    @Autowired
+    TransactionMetrics metrics;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    void joinV1() {
+        memberService.joinV1("metrics_joinV1");
+
+        MethodTransactionMetrics join = metrics.find("hello.springtx.propagation.MemberService.joinV1").get();
+        MethodTransactionMetrics logSave = metrics.find("hello.springtx.propagation.LogRepository.save").get();
+        log.info("{}", join);
+        log.info("{}", logSave);
+
+        assertThat(join.getCommit().snapshot().getCount()).isGreaterThanOrEqualTo(1);
+        // LogRepository.save(REQUIRES_NEW) 가 실행되는 동안 joinV1 트랜잭션은 보류된다
+        assertThat(join.getSuspended().snapshot().getCount()).isGreaterThanOrEqualTo(1);
+        assertThat(logSave.getCommit().snapshot().getCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void orderUnchecked() {
+        Order order = new Order();
+        order.setUsername("예외");
+
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(RuntimeException.class);
+
+        MethodTransactionMetrics orderMetrics = metrics.find("hello.springtx.order.OrderService.order").get();
+        log.info("{}", orderMetrics);
+        assertThat(orderMetrics.getRollback().snapshot().getCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void histogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(100);
+        assertThat(snapshot.getMaxNanos()).isEqualTo(100_000);
+        // 버킷 오차(1/16) 이내
+        assertThat(snapshot.getP50Nanos()).isBetween(50_000L, 50_000L + 50_000L / 16);
+        assertThat(snapshot.getP99Nanos()).isBetween(99_000L, 99_000L + 99_000L / 16);
+    }
+}
@@ -0,0 +1,91 @@
+package hello.springtx.order;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.order.OrderResult.Outcome;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest
+class IdempotentOrderSubmitterTest {
+
+    @Autowired
+    IdempotentOrderSubmitter submitter;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository repository;
+
+    // 같은 키로 다시 요청하면 캐시에서 처음 결과를 그대로 돌려준다
+    @Test
+    void duplicate() {
+        OrderResult first = submitter.submit("idem-duplicate", order("정상"));
+        OrderResult second = submitter.submit("idem-duplicate", order("정상"));
+
+        assertThat(first.getOutcome()).isEqualTo(Outcome.COMPLETED);
+        assertThat(second).isSameAs(first);
+        assertThat(repository.findByIdempotencyKey("idem-duplicate")).isPresent();
+    }
+
+    // 처리 중인 같은 키 요청은 하나로 합쳐진다
+    @Test
+    void concurrentDuplicates() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderResult>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return submitter.submit("idem-concurrent", order("정상"));
+            }));
+        }
+        start.countDown();
+
+        Long orderId = null;
+        for (Future<OrderResult> future : futures) {
+            OrderResult result = future.get();
+            orderId = orderId == null ? result.getOrder().getId() : orderId;
+            assertThat(result.getOrder().getId()).isEqualTo(orderId);
+        }
+        executor.shutdown();
+    }
+
+    // 캐시에 없는 키(다른 서버가 처리했거나 캐시에서 밀려난 경우)는 유니크 인덱스로 중복을 막는다
+    @Test
+    void duplicate_afterCacheEviction() {
+        OrderResult first = submitter.submit("idem-evicted", order("잔고 부족"));
+        assertThat(first.getOutcome()).isEqualTo(Outcome.PENDING);
+
+        IdempotentOrderSubmitter otherNode = new IdempotentOrderSubmitter(orderService, repository, 100, Duration.ofMinutes(1));
+        OrderResult second = otherNode.submit("idem-evicted", order("잔고 부족"));
+
+        assertThat(second.getOutcome()).isEqualTo(Outcome.PENDING);
+        assertThat(second.getOrder().getId()).isEqualTo(first.getOrder().getId());
+    }
+
+    // 시스템 예외는 저장되지 않으므로 캐시하지 않는다. 같은 키로 다시 시도할 수 있다
+    @Test
+    void failed_notCached() {
+        assertThatThrownBy(() -> submitter.submit("idem-failed", order("예외"))).isInstanceOf(RuntimeException.class);
+
+        OrderResult retried = submitter.submit("idem-failed", order("정상"));
+        assertThat(retried.getOutcome()).isEqualTo(Outcome.COMPLETED);
+    }
+
+    private static Order order(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
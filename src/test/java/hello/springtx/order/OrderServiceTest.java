@@ -3,6 +3,14 @@ package hello.springtx.order;
 
 import static org.assertj.core.api.Assertions.*;
 
+import hello.springtx.concurrent.OptimisticLockRetryTemplate;
+import hello.springtx.order.OrderResult.Outcome;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -19,6 +27,12 @@ public class OrderServiceTest {
     @Autowired
     OrderRepository repository;
 
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    OptimisticLockRetryTemplate retryTemplate;
+
     @Test
     void order() throws NotEnoughMoneyException {
         Order order = new Order();
@@ -27,7 +41,7 @@ public class OrderServiceTest {
         service.order(order);
 
         Order find = repository.findById(order.getId()).get();
-        assertThat(find.getPayStatus()).isEqualTo("완료");
+        assertThat(find.getPayStatus()).isEqualTo(PayStatus.COMPLETED);
     }
 
     @Test
@@ -52,6 +66,108 @@ public class OrderServiceTest {
         /** 꼭 예외를 던져서 지금처럼 할 필요는 없고, Enum과 같은 것으로 비즈니스 예외 상황을 잘 정의하고 리턴값을 넘겨받아 검증하는 식으로 구현할 수도 있다 */
 
 
-        assertThat(repository.findById(order.getId()).get().getPayStatus()).isEqualTo("대기");
+        assertThat(repository.findById(order.getId()).get().getPayStatus()).isEqualTo(PayStatus.PENDING);
+    }
+
+    @Test
+    void orderAll() {
+        Order normal = new Order();
+        normal.setUsername("정상");
+        Order unchecked = new Order();
+        unchecked.setUsername("예외");
+        Order business = new Order();
+        business.setUsername("잔고 부족");
+
+        List<OrderResult> results = service.orderAll(List.of(normal, unchecked, business));
+
+        // 한 주문의 예외가 다른 주문의 결과에 영향을 주지 않는다
+        assertThat(results).extracting(OrderResult::getOutcome)
+                .containsExactly(Outcome.COMPLETED, Outcome.FAILED, Outcome.PENDING);
+        assertThat(repository.findById(normal.getId()).get().getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+        assertThat(repository.findById(business.getId()).get().getPayStatus()).isEqualTo(PayStatus.PENDING);
+        assertThat(unchecked.getId()).isNull(); // 시스템 예외가 난 주문은 저장되지 않는다
+    }
+
+    // 같은 주문의 결제 상태를 여러 스레드가 동시에 바꿔도, 충돌한 쪽이 재시도하므로 변경이 하나도 사라지지 않는다
+    // 각 호출은 현재 상태를 읽어서 반대로 바꾸므로 매번 실제 UPDATE 가 나가고 @Version 이 하나씩 오른다.
+    // 변경이 하나라도 덮어써졌다면 버전이 덜 오르고, 최종 상태도 짝수 번 뒤집은 결과(처음과 같은 상태)가 아니게 된다.
+    @Test
+    void updatePayStatus_concurrent() throws Exception {
+        Order order = new Order();
+        order.setUsername("정상");
+        service.order(order);
+        long version = repository.findById(order.getId()).get().getVersion();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Order>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> retryTemplate.execute(status -> {
+                Order current = repository.findById(order.getId()).orElseThrow();
+                current.setPayStatus(current.getPayStatus() == PayStatus.COMPLETED ? PayStatus.PENDING : PayStatus.COMPLETED);
+                return current;
+            })));
+        }
+        for (Future<Order> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Order updated = repository.findById(order.getId()).get();
+        assertThat(updated.getVersion()).isEqualTo(version + 8);
+        assertThat(updated.getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+    }
+
+    // OrderService.updatePayStatus 를 여러 스레드가 동시에 호출한다. 모두 '완료' -> '실패' 로 바꾼다.
+    // 먼저 커밋한 한 건만 실제로 바꾸고(버전 +1), 나머지는 충돌 후 재시도해서 이미 '실패'인 주문을 읽으므로 UPDATE 가 나가지 않는다.
+    // 호출마다 상태 변경 이벤트는 정확히 한 번씩 커밋된다. (충돌로 롤백된 시도의 이벤트는 남지 않는다)
+    @Test
+    void updatePayStatus_service_concurrent() throws Exception {
+        Order order = new Order();
+        order.setUsername("정상");
+        service.order(order);
+        long version = repository.findById(order.getId()).get().getVersion();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Order>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> service.updatePayStatus(order.getId(), PayStatus.FAILED)));
+        }
+        for (Future<Order> future : futures) {
+            assertThat(future.get().getPayStatus()).isEqualTo(PayStatus.FAILED);
+        }
+        executor.shutdown();
+
+        Order updated = repository.findById(order.getId()).get();
+        assertThat(updated.getVersion()).isEqualTo(version + 1);
+        assertThat(updated.getPayStatus()).isEqualTo(PayStatus.FAILED);
+        Long events = em.createQuery("select count(e) from OutboxEvent e"
+                        + " where e.aggregateId = :id and e.eventType = 'PayStatusChanged' and e.payload = 'FAILED'", Long.class)
+                .setParameter("id", order.getId())
+                .getSingleResult();
+        assertThat(events).isEqualTo(8);
+    }
+
+    @Test
+    void updatePayStatusIf() {
+        Order order = new Order();
+        order.setUsername("잔고 부족");
+        assertThatThrownBy(() -> service.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        assertThat(service.updatePayStatusIf(order.getId(), PayStatus.PENDING, PayStatus.COMPLETED)).isTrue();
+        assertThat(service.updatePayStatusIf(order.getId(), PayStatus.PENDING, PayStatus.COMPLETED)).isFalse(); // 이미 '완료'
+        assertThat(repository.findById(order.getId()).get().getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+    }
+
+    // 결제 상태는 한글 문자열이 아니라 PayStatus 코드(TINYINT)로 저장된다
+    @Test
+    void payStatus_storedAsCode() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername("정상");
+        service.order(order);
+
+        Object stored = em.createNativeQuery("select pay_status from orders where id = :id")
+                .setParameter("id", order.getId())
+                .getSingleResult();
+        assertThat(((Number) stored).byteValue()).isEqualTo(PayStatus.COMPLETED.getCode());
     }
 }
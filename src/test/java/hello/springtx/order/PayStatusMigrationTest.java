@@ -0,0 +1,75 @@
+package hello.springtx.order;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptStatementFailedException;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+// db/orders-pay-status-migration-h2.sql 을 문자열 pay_status 컬럼이 있는 예전 스키마에 실행해본다
+class PayStatusMigrationTest {
+
+    DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:pay_status_migration;DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("drop table if exists orders");
+        jdbcTemplate.execute("create table orders (id bigint primary key, pay_status varchar(255), next_pay_attempt_at timestamp)");
+        jdbcTemplate.execute("create index ix_orders_pay_retry on orders (pay_status, next_pay_attempt_at)");
+    }
+
+    @Test
+    void migrate() throws SQLException {
+        insert(1, "대기");
+        insert(2, "완료");
+        insert(3, "실패");
+        insert(4, null);
+
+        migrate();
+
+        assertThat(payStatuses()).containsExactly(
+                PayStatus.PENDING.getCode(), PayStatus.COMPLETED.getCode(), PayStatus.FAILED.getCode(), null);
+    }
+
+    // 매핑에 없는 문자열이 있으면 원래 컬럼을 지우기 전에 멈추고, 데이터를 고친 뒤 다시 실행하면 끝까지 간다
+    @Test
+    void unmappedLabel_stopsAndReruns() throws SQLException {
+        insert(1, "완료");
+        insert(2, "보류");
+
+        assertThatThrownBy(this::migrate).isInstanceOf(ScriptStatementFailedException.class);
+        assertThat(jdbcTemplate.queryForList("select pay_status from orders order by id", String.class))
+                .containsExactly("완료", "보류");
+
+        jdbcTemplate.update("update orders set pay_status = '대기' where pay_status = '보류'");
+        migrate();
+
+        assertThat(payStatuses()).containsExactly(PayStatus.COMPLETED.getCode(), PayStatus.PENDING.getCode());
+    }
+
+    private void insert(long id, String payStatus) {
+        jdbcTemplate.update("insert into orders (id, pay_status) values (?, ?)", id, payStatus);
+    }
+
+    private void migrate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection,
+                    new EncodedResource(new ClassPathResource("db/orders-pay-status-migration-h2.sql"), StandardCharsets.UTF_8));
+        }
+    }
+
+    private List<Byte> payStatuses() {
+        return jdbcTemplate.queryForList("select pay_status from orders order by id", Byte.class);
+    }
+}
@@ -0,0 +1,66 @@
+package hello.springtx.order;
+
+import static org.assertj.core.api.Assertions.*;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// 백오프를 0으로 두고, 스케줄러 대신 retryAll 을 직접 호출한다
+@Slf4j
+@SpringBootTest(properties = {
+        "order.retry.initial-backoff=0s",
+        "order.retry.max-attempts=3"
+})
+class PendingOrderRetrierTest {
+
+    @Autowired
+    OrderService service;
+    @Autowired
+    OrderRepository repository;
+    @Autowired
+    PendingOrderRetrier retrier;
+
+    @Test
+    void retry_success() {
+        Order order = pendingOrder();
+
+        // 고객이 입금을 했다고 가정
+        Order deposited = repository.findById(order.getId()).get();
+        deposited.setUsername("정상");
+        repository.save(deposited);
+
+        retrier.retryAll();
+
+        Order find = repository.findById(order.getId()).get();
+        assertThat(find.getPayStatus()).isEqualTo(PayStatus.COMPLETED);
+        assertThat(find.getPayAttempts()).isEqualTo(1);
+        assertThat(find.getNextPayAttemptAt()).isNull();
+    }
+
+    @Test
+    void retry_maxAttempts() {
+        Order order = pendingOrder();
+
+        for (int i = 0; i < 3; i++) {
+            retrier.retryAll();
+        }
+
+        Order find = repository.findById(order.getId()).get();
+        assertThat(find.getPayStatus()).isEqualTo(PayStatus.FAILED);
+        assertThat(find.getPayAttempts()).isEqualTo(3);
+
+        // 더 이상 재시도하지 않는다
+        retrier.retryAll();
+        assertThat(repository.findById(order.getId()).get().getPayAttempts()).isEqualTo(3);
+    }
+
+    private Order pendingOrder() {
+        Order order = new Order();
+        order.setUsername("잔고 부족");
+        assertThatThrownBy(() -> service.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+        assertThat(repository.findById(order.getId()).get().getPayStatus()).isEqualTo(PayStatus.PENDING);
+        return order;
+    }
+}
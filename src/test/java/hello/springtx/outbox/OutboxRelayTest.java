@@ -0,0 +1,60 @@
+package hello.springtx.outbox;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.order.PayStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest
+class OutboxRelayTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OutboxRelay relay;
+    @Autowired
+    InMemoryOutboxEventSink sink;
+
+    @Test
+    void order_relay() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        // 주문 트랜잭션은 이벤트를 저장만 하고, 발행은 릴레이가 한다
+        assertThat(eventsOf(order)).isZero();
+
+        relay.relayAll();
+        assertThat(eventsOf(order)).isEqualTo(1);
+        assertThat(sink.getEvents()).filteredOn(event -> event.getAggregateId().equals(order.getId()))
+                .extracting(OutboxEvent::getPayload)
+                .containsExactly(PayStatus.COMPLETED.name());
+
+        // 이미 발행한 이벤트는 다시 발행하지 않는다
+        relay.relayAll();
+        assertThat(eventsOf(order)).isEqualTo(1);
+    }
+
+    @Test
+    void orderUnchecked_noEvent() {
+        Order order = new Order();
+        order.setUsername("예외");
+
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(RuntimeException.class);
+
+        // 주문이 롤백되면 이벤트도 같이 롤백된다
+        relay.relayAll();
+        assertThat(eventsOf(order)).isZero();
+    }
+
+    private long eventsOf(Order order) {
+        return sink.getEvents().stream().filter(event -> event.getAggregateId().equals(order.getId())).count();
+    }
+}
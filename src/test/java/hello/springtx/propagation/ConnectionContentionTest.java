@@ -0,0 +1,59 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import hello.springtx.jdbc.ConnectionDepthGuard;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+풀이 잠깐 비어 있는 것은 보통의 경합이다. 다른 스레드가 커넥션을 곧 반환하면 REQUIRES_NEW 도 실패하지 않는다.
+커넥션 2개 중 하나를 다른 트랜잭션이 잠시 쥐고 있는 동안 joinV1 이 두 번째 커넥션을 요청한다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "tx.connection-guard.enabled=true",
+        "tx.connection-guard.wait=2s",
+        "spring.datasource.hikari.maximum-pool-size=2"
+})
+class ConnectionContentionTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate txTemplate;
+    @Autowired
+    ConnectionDepthGuard guard;
+
+    @Test
+    void requiresNew_contention_waits() throws InterruptedException {
+        CountDownLatch holding = new CountDownLatch(1);
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> txTemplate.executeWithoutResult(status -> {
+            holding.countDown();
+            sleep(300);
+        }));
+        holding.await();
+
+        memberService.joinV1("contention_waits");
+        other.join();
+
+        assertTrue(memberRepository.find("contention_waits").isPresent());
+        assertThat(guard.getDepthHistogram()).containsKey(2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import hello.springtx.jdbc.ConnectionDepthGuard;
+import hello.springtx.jdbc.ConnectionStarvationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.NestedExceptionUtils;
+
+/*
+커넥션 풀 크기를 1로 줄여서 MemberService(REQUIRED) -> LogRepository(REQUIRES_NEW) 의 커넥션 고갈을 재현한다.
+감지가 없으면 외부 트랜잭션이 커넥션을 쥔 채로 두 번째 커넥션을 connection-timeout 까지 기다린다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "tx.connection-guard.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=5000"
+})
+class ConnectionStarvationTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ConnectionDepthGuard guard;
+
+    @Test
+    void requiresNew_starvation_failFast() {
+        long start = System.nanoTime();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> memberService.joinV1("starvation_failFast"));
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("실패까지 걸린 시간 = {}ms", elapsedMillis);
+        assertThat(NestedExceptionUtils.getMostSpecificCause(e)).isInstanceOf(ConnectionStarvationException.class);
+        assertThat(elapsedMillis).isLessThan(5000); // connection-timeout 까지 기다리지 않는다
+        assertThat(guard.getPeakDepth()).isEqualTo(1);
+        assertThat(guard.getDepthHistogram()).containsOnlyKeys(1);
+    }
+
+    // 여러 스레드가 동시에 joinV1 을 호출해도 멈추지 않고, 모두 정해진 시간 안에 끝난다
+    @Test
+    void requiresNew_starvation_concurrent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String username = "starvation_concurrent_" + i;
+            futures.add(executor.submit(() -> memberService.joinV1(username)));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = NestedExceptionUtils.getMostSpecificCause(e.getCause());
+                log.info("joinV1 실패 = {}", cause.getMessage());
+                assertThat(cause).isInstanceOf(ConnectionStarvationException.class);
+            }
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,94 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.jdbc.JdbcTransactionManagerConfig;
+import hello.springtx.jdbc.PooledSequenceIdAllocator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// log.jdbc.enabled=true: 로그는 JDBC + jdbcTransactionManager, 나머지는 JPA + transactionManager
+@Slf4j
+@SpringBootTest(properties = "log.jdbc.enabled=true")
+class JdbcLogRepositoryTest {
+
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    @Qualifier("logRepository")
+    LogRepository jpaLogRepository;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    @Qualifier(JdbcTransactionManagerConfig.JDBC)
+    PlatformTransactionManager jdbcTransactionManager;
+
+    @Test
+    void managers() {
+        assertThat(logRepository).isInstanceOf(JdbcLogRepository.class);
+        assertThat(transactionManager).isNotSameAs(jdbcTransactionManager);
+    }
+
+    // JPA 로 저장한 로그와 JDBC 로 저장한 로그가 같은 시퀀스를 써도 id 가 겹치지 않는다
+    @Test
+    void save() {
+        Log jpa = new Log("jdbc_save_jpa");
+        Log jdbc = new Log("jdbc_save_jdbc");
+        jpaLogRepository.save(jpa);
+        logRepository.save(jdbc);
+
+        assertThat(jdbc.getId()).isNotNull().isNotEqualTo(jpa.getId());
+        assertThat(logRepository.find("jdbc_save_jdbc")).map(Log::getId).hasValue(jdbc.getId());
+    }
+
+    @Test
+    void saveAll_rollback() {
+        List<Log> logs = List.of(new Log("jdbc_saveAll_1"), new Log("jdbc_saveAll_예외"));
+
+        assertThatThrownBy(() -> logRepository.saveAll(logs)).isInstanceOf(RuntimeException.class);
+
+        assertThat(logRepository.find("jdbc_saveAll_1")).isEmpty();
+    }
+
+    // JPA 트랜잭션(joinV2) 안에서 시작한 JDBC 로그 트랜잭션은 별도의 물리 트랜잭션이다 (REQUIRES_NEW 와 같은 결과)
+    @Test
+    void joinV2_recoverException() {
+        String username = "jdbc_joinV2_예외";
+
+        memberService.joinV2(username);
+
+        assertThat(memberRepository.find(username)).isPresent();
+        assertThat(logRepository.find(username)).isEmpty();
+    }
+
+    @Test
+    void joinV1() {
+        String username = "jdbc_joinV1";
+
+        memberService.joinV1(username);
+
+        assertThat(memberRepository.find(username)).isPresent();
+        assertThat(logRepository.find(username)).isPresent();
+    }
+
+    // pooled 최적화는 시퀀스 값을 블록의 끝으로 해석하므로 JDBC 할당기와 id 가 겹친다. 그래서 만들 때 실패한다.
+    @Test
+    void allocator_requiresPooledLo() {
+        assertThatThrownBy(() -> PooledSequenceIdAllocator.forEntity(jdbcTemplate, Log.class, "pooled"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(PooledSequenceIdAllocator.forEntity(jdbcTemplate, Log.class, PooledSequenceIdAllocator.POOLED_LO).next())
+                .isPositive();
+    }
+}
@@ -0,0 +1,87 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "log.write-behind.enabled=true",
+        "log.write-behind.flush-interval=1h", // 자동 flush 는 막고, 테스트에서 직접 flush 한다
+        "log.write-behind.capacity=2",
+        "log.write-behind.overflow-policy=spill",
+        "log.write-behind.spill-file=build/log-write-behind-test.spill"
+})
+class LogWriteBehindQueueTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    LogWriteBehindQueue logWriteBehindQueue;
+
+    @Test
+    void writeBehind_success() {
+        String username = "writeBehind_success";
+
+        memberService.joinV2(username);
+
+        // 회원은 바로 커밋되고, 로그는 flush 전까지 저장되지 않는다
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isEmpty());
+
+        logWriteBehindQueue.flush();
+        assertTrue(logRepository.find(username).isPresent());
+    }
+
+    @Test
+    void writeBehind_logFail() {
+        String username = "writeBehind_logFail예외";
+
+        memberService.joinV2(username);
+        logWriteBehindQueue.flush();
+
+        // 로그 저장이 실패해도 회원 가입에는 영향이 없다
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    @Test
+    void writeBehind_spill() {
+        // capacity(2)를 넘는 로그는 디스크에 적어뒀다가 flush 때 저장한다
+        for (int i = 0; i < 5; i++) {
+            logWriteBehindQueue.offer(new Log("writeBehind_spill_" + i));
+        }
+
+        assertThat(logWriteBehindQueue.flush()).isEqualTo(5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(logRepository.find("writeBehind_spill_" + i).isPresent());
+        }
+    }
+
+    // 저장 도중 죽어서 남은 .replay 파일은 다음 flush 때 저장되고, 저장이 끝난 뒤에 지워진다
+    @Test
+    void writeBehind_leftoverReplay() throws IOException {
+        Path replay = Paths.get("build/log-write-behind-test.spill.replay");
+        Files.createDirectories(replay.getParent());
+        Files.write(replay, List.of("leftoverReplay_0", "leftoverReplay_1"), StandardCharsets.UTF_8);
+
+        assertThat(logWriteBehindQueue.flush()).isEqualTo(2);
+        assertTrue(logRepository.find("leftoverReplay_0").isPresent());
+        assertTrue(logRepository.find("leftoverReplay_1").isPresent());
+        assertFalse(Files.exists(replay));
+    }
+}
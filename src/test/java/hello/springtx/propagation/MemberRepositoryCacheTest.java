@@ -0,0 +1,49 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class MemberRepositoryCacheTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    void find_naturalIdCache() {
+        String username = "find_naturalIdCache";
+        memberService.joinV1(username);
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(memberRepository.find(username).isPresent());
+
+        log.info("naturalId cache hit = {}, miss = {}, query = {}", statistics.getNaturalIdCacheHitCount(),
+                statistics.getNaturalIdCacheMissCount(), statistics.getNaturalIdQueryExecutionCount());
+        // 두 번째 조회부터는 DB 를 거치지 않는다
+        assertThat(statistics.getNaturalIdCacheHitCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void find_notExists() {
+        assertTrue(memberRepository.find("find_notExists").isEmpty());
+    }
+}
@@ -0,0 +1,57 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.monitor.SessionWorkCounter;
+import hello.springtx.monitor.SessionWorkCounter.Work;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// joinV1 의 회원/로그 INSERT 를 한 트랜잭션, 한 번의 flush 로 합치는 모드
+@Slf4j
+@SpringBootTest(properties = "member.join.coalesce-log=true")
+class MemberServiceCoalesceTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    SessionWorkCounter workCounter;
+
+    // allocationSize(50)번 연속으로 가입하면 member_seq, log_seq 를 정확히 한 번씩 조회한다
+    @Test
+    void joinV1_roundTrips() {
+        int count = 50; // Member, Log 의 @SequenceGenerator allocationSize
+
+        Work before = workCounter.current();
+        for (int i = 0; i < count; i++) {
+            memberService.joinV1("coalesce_roundTrips_" + i);
+        }
+        Work work = workCounter.current().minus(before);
+
+        log.info("joinV1 {}건 {}", count, work);
+        assertThat(work.getTransactions()).isEqualTo(count);
+        assertThat(work.getFlushes()).isEqualTo(count);
+        assertThat(work.getStatements()).isEqualTo(2 * count + 2); // 가입마다 member INSERT, log INSERT + 시퀀스 조회 2번
+        assertThat(work.getRoundTrips()).isEqualTo(3 * count + 2); // 기본 모드(REQUIRES_NEW)보다 가입마다 커밋이 한 번 적다
+
+        assertThat(memberRepository.find("coalesce_roundTrips_0")).isPresent();
+        assertThat(logRepository.find("coalesce_roundTrips_" + (count - 1))).isPresent();
+    }
+
+    // 로그 저장이 실패하면 회원 가입도 롤백된다 (기본 모드의 joinV1 과 같은 결과)
+    @Test
+    void joinV1_fail() {
+        String username = "coalesce_예외";
+
+        assertThatThrownBy(() -> memberService.joinV1(username)).isInstanceOf(RuntimeException.class);
+
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(logRepository.find(username)).isEmpty();
+    }
+}
@@ -0,0 +1,99 @@
+package hello.springtx.propagation;
+
+import static org.assertj.core.api.Assertions.*;
+
+import hello.springtx.monitor.SessionWorkCounter;
+import hello.springtx.monitor.SessionWorkCounter.Work;
+import java.util.List;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// joinV2 의 로그를 REQUIRES_NEW 대신 세이브포인트(NESTED)로 저장하는 모드
+@Slf4j
+@SpringBootTest(properties = {"tx.jpa-savepoints.enabled=true", "member.join.nested-log=true"})
+class MemberServiceNestedTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    SessionWorkCounter workCounter;
+    @Autowired
+    PlatformTransactionManager txManager;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void joinV2_success() {
+        String username = "nested_success";
+
+        Work before = workCounter.current();
+        memberService.joinV2(username);
+        Work work = workCounter.current().minus(before);
+
+        log.info("joinV2 {}", work);
+        assertThat(work.getTransactions()).isEqualTo(1); // REQUIRES_NEW 라면 2
+        assertThat(memberRepository.find(username)).isPresent();
+        assertThat(logRepository.find(username)).isPresent();
+    }
+
+    // 로그 저장이 실패해도 세이브포인트까지만 롤백되고, 회원은 같은 트랜잭션으로 커밋된다
+    @Test
+    void joinV2_logFail() {
+        String username = "nested_로그예외";
+
+        Work before = workCounter.current();
+        memberService.joinV2(username);
+        Work work = workCounter.current().minus(before);
+
+        assertThat(work.getTransactions()).isEqualTo(1);
+        assertThat(memberRepository.find(username)).isPresent();
+        assertThat(logRepository.find(username)).isEmpty();
+    }
+
+    // 세이브포인트 전부터 있던 엔티티를 안쪽에서 수정하거나 삭제한 뒤 롤백하면, 세이브포인트 때의 값으로 돌아간다
+    @Test
+    void nestedRollback_restoresExistingEntities() {
+        TransactionTemplate outer = new TransactionTemplate(txManager);
+        TransactionTemplate nested = new TransactionTemplate(txManager);
+        nested.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+        outer.executeWithoutResult(status -> {
+            Log modified = new Log("restore_modified");
+            Log flushedModified = new Log("restore_flushedModified");
+            Log removed = new Log("restore_removed");
+            Log flushedRemoved = new Log("restore_flushedRemoved");
+            List.of(modified, flushedModified, removed, flushedRemoved).forEach(em::persist);
+
+            nested.executeWithoutResult(inner -> {
+                flushedModified.setMessage("restore_changed");
+                em.remove(flushedRemoved);
+                em.flush();
+                modified.setMessage("restore_changed");
+                em.remove(removed);
+                inner.setRollbackOnly(); // 세이브포인트까지 롤백
+            });
+
+            for (Log logMessage : List.of(modified, flushedModified, removed, flushedRemoved)) {
+                assertThat(em.contains(logMessage)).isTrue();
+            }
+            assertThat(modified.getMessage()).isEqualTo("restore_modified");
+            assertThat(flushedModified.getMessage()).isEqualTo("restore_flushedModified");
+        });
+
+        // 바깥 트랜잭션 커밋이 롤백된 변경을 다시 쓰지 않는다
+        for (String message : List.of("restore_modified", "restore_flushedModified", "restore_removed", "restore_flushedRemoved")) {
+            assertThat(logRepository.find(message)).isPresent();
+        }
+        assertThat(logRepository.find("restore_changed")).isEmpty();
+    }
+}
@@ -3,6 +3,10 @@ package hello.springtx.propagation;
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import hello.springtx.monitor.SessionWorkCounter;
+import hello.springtx.monitor.SessionWorkCounter.Work;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
@@ -21,6 +25,8 @@ class MemberServiceTest {
     MemberRepository memberRepository;
     @Autowired
     LogRepository logRepository;
+    @Autowired
+    SessionWorkCounter workCounter;
 
     /**
      * MemberService        @Transactional: OFF
@@ -140,6 +146,47 @@ class MemberServiceTest {
         // 따로 동작하길 바라는 논리트랜잭션을 별개의 물리트랜잭션으로 분리하자, 이제야 원하는 상황대로 동작하게 되었다.
     }
 
+    // joinV1 한 번에 DB 를 몇 번 왕복하는지 (로그를 REQUIRES_NEW 로 따로 저장하는 기본 모드)
+    // member.join.coalesce-log=true 일 때는 MemberServiceCoalesceTest 참고
+    // allocationSize(50)번 연속으로 가입하면 앞선 테스트가 id 를 몇 개 썼든 member_seq, log_seq 를 정확히 한 번씩 조회한다.
+    @Test
+    void joinV1_roundTrips() {
+        int count = 50; // Member, Log 의 @SequenceGenerator allocationSize
+
+        Work before = workCounter.current();
+        for (int i = 0; i < count; i++) {
+            memberService.joinV1("joinV1_roundTrips_" + i);
+        }
+        Work work = workCounter.current().minus(before);
+
+        log.info("joinV1 {}건 {}", count, work);
+        assertThat(work.getTransactions()).isEqualTo(2 * count); // joinV1 + LogRepository.save(REQUIRES_NEW)
+        assertThat(work.getFlushes()).isEqualTo(2 * count);
+        assertThat(work.getStatements()).isEqualTo(2 * count + 2); // 가입마다 member INSERT, log INSERT + 시퀀스 조회 2번
+        assertThat(work.getRoundTrips()).isEqualTo(4 * count + 2); // 가입 한 건은 INSERT 2번 + 커밋 2번
+    }
+
+    // 대량 가입: 로그 실패는 회원 가입에 영향을 주지 않고, 이미 있는 이름만 가입에 실패한다
+    @Test
+    void joinAll() {
+        memberService.joinV1("joinAll_exists");
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            usernames.add("joinAll_" + i);
+        }
+        usernames.add("joinAll_exists");
+        usernames.add("joinAll_로그예외");
+
+        List<String> failed = memberService.joinAll(usernames);
+
+        assertThat(failed).containsExactly("joinAll_exists");
+        assertTrue(memberRepository.find("joinAll_0").isPresent());
+        assertTrue(memberRepository.find("joinAll_249").isPresent());
+        assertTrue(logRepository.find("joinAll_249").isPresent());
+        assertTrue(memberRepository.find("joinAll_로그예외").isPresent());
+        assertTrue(logRepository.find("joinAll_로그예외").isEmpty());
+    }
+
     /*
      정리: 하나의 비즈니스 로직 안의 여러 트랜잭션 로직이 존재할 수 있다.
         정합성을 맞춰야 하는 로직은 하나의 물리 트랜잭션 안에 들어있어야 한다.